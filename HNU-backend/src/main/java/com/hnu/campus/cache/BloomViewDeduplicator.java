@@ -0,0 +1,70 @@
+package com.hnu.campus.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 概率去重：每个帖子每个时间窗口一个 Redis 位图作为布隆过滤器，浏览脚本同时检查当前窗口和上一个窗口。
+ * 去重效果覆盖 1~2 个窗口；误判（把首次浏览当成重复）的概率由 false-positive-rate 控制，只会少计不会多计。
+ * 位图大小按 expected-viewers 和误判率计算，不随浏览人次增长。
+ */
+@Component
+@ConditionalOnProperty(name = "post.view-dedup.mode", havingValue = "bloom")
+public class BloomViewDeduplicator implements ViewDeduplicator {
+    private static final String BLOOM_PREFIX = "post:view:bloom:";
+
+    private final long windowMillis;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomViewDeduplicator(@Value("${post.view-dedup.window-minutes:10}") long windowMinutes,
+                                 @Value("${post.view-dedup.bloom.expected-viewers:10000}") long expectedViewers,
+                                 @Value("${post.view-dedup.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (expectedViewers < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid bloom dedup config");
+        }
+        this.windowMillis = windowMinutes * 60 * 1000;
+        this.bitCount = optimalBitCount(expectedViewers, falsePositiveRate);
+        this.hashCount = optimalHashCount(expectedViewers, bitCount);
+    }
+
+    @Override
+    public Spec spec(Long postId, Long userId) {
+        long window = System.currentTimeMillis() / windowMillis;
+        List<String> keys = List.of(BLOOM_PREFIX + postId + ":" + window, BLOOM_PREFIX + postId + ":" + (window - 1));
+        // 当前窗口的位图还要作为下一窗口的"上一窗口"使用，保留两个窗口
+        return new Spec("bloom", keys, windowMillis * 2 / 1000, offsets(userId));
+    }
+
+    /**
+     * 双重哈希：h1 + i * h2 生成 k 个位置
+     */
+    long[] offsets(Long userId) {
+        long hash = mix64(userId);
+        long h1 = hash & 0xFFFFFFFFL;
+        long h2 = (hash >>> 32) | 1;
+        long[] offsets = new long[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, bitCount);
+        }
+        return offsets;
+    }
+
+    private static long mix64(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    static long optimalBitCount(long expected, double falsePositiveRate) {
+        return (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    }
+
+    static int optimalHashCount(long expected, long bits) {
+        return Math.max(1, (int) Math.round((double) bits / expected * Math.log(2)));
+    }
+}
@@ -0,0 +1,130 @@
+package com.hnu.campus.cache;
+
+import com.hnu.campus.mapper.CommentMapper;
+import com.hnu.campus.mapper.PostMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 评论计数缓冲。
+ * 发表/删除评论时只在本地累加帖子评论数和父评论回复数的增量，定时合并成每张表一条
+ * UPDATE ... FROM (VALUES ...) 写回，热门帖子下的评论不再争用同一行的行锁。
+ * 进程退出前未刷出的增量会丢失，由 {@link com.hnu.campus.task.CommentCountReconcileTask} 修正。
+ */
+@Slf4j
+@Component
+public class CommentCountBuffer {
+    private final ConcurrentHashMap<Long, LongAdder> postDeltas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, LongAdder> replyDeltas = new ConcurrentHashMap<>();
+
+    private final PostMapper postMapper;
+    private final CommentMapper commentMapper;
+    private final PostDetailCache postDetailCache;
+
+    public CommentCountBuffer(PostMapper postMapper,
+                              CommentMapper commentMapper,
+                              PostDetailCache postDetailCache) {
+        this.postMapper = postMapper;
+        this.commentMapper = commentMapper;
+        this.postDetailCache = postDetailCache;
+    }
+
+    /**
+     * 记录帖子评论数变化；在事务中调用时推迟到提交之后，回滚的修改不计数
+     */
+    public void recordComment(Long postId, long delta) {
+        afterCommit(() -> postDeltas.computeIfAbsent(postId, id -> new LongAdder()).add(delta));
+    }
+
+    /**
+     * 记录父评论的直接回复数变化
+     */
+    public void recordReply(Long parentId, long delta) {
+        afterCommit(() -> replyDeltas.computeIfAbsent(parentId, id -> new LongAdder()).add(delta));
+    }
+
+    @Scheduled(fixedDelayString = "${post.comment-count.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, Long> posts = drain(postDeltas);
+        if (!posts.isEmpty()) {
+            try {
+                postMapper.incrementCommentCounts(posts);
+                // 详情缓存里的评论数已过时
+                postDetailCache.bumpVersions(posts.keySet());
+            } catch (Exception ex) {
+                restore(postDeltas, posts);
+                log.warn("Flush post comment counts failed, restored {} posts: {}", posts.size(), ex.getMessage());
+            }
+        }
+        Map<Long, Long> replies = drain(replyDeltas);
+        if (!replies.isEmpty()) {
+            try {
+                commentMapper.incrementReplyCounts(replies);
+            } catch (Exception ex) {
+                restore(replyDeltas, replies);
+                log.warn("Flush comment reply counts failed, restored {} comments: {}", replies.size(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 持有刷写锁执行帖子评论数对账，传入本地有未落库增量的帖子ID供对账跳过；对账期间不会有刷写交错
+     */
+    public synchronized <T> T reconcilePosts(Function<Set<Long>, T> reconciler) {
+        return reconciler.apply(Set.copyOf(postDeltas.keySet()));
+    }
+
+    /**
+     * 同 {@link #reconcilePosts}，用于父评论回复数
+     */
+    public synchronized <T> T reconcileReplies(Function<Set<Long>, T> reconciler) {
+        return reconciler.apply(Set.copyOf(replyDeltas.keySet()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static Map<Long, Long> drain(ConcurrentHashMap<Long, LongAdder> deltas) {
+        Map<Long, Long> drained = new HashMap<>();
+        deltas.forEach((id, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                drained.put(id, delta);
+            } else {
+                // 与 PostViewBuffer 相同：移除瞬间并发写入的个别增量可能丢失，由对账任务修正
+                deltas.remove(id, adder);
+            }
+        });
+        return drained;
+    }
+
+    private static void restore(ConcurrentHashMap<Long, LongAdder> deltas, Map<Long, Long> drained) {
+        drained.forEach((id, delta) -> deltas.computeIfAbsent(id, key -> new LongAdder()).add(delta));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+            return;
+        }
+        action.run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.hnu.campus.cache;
+
+import com.hnu.campus.dto.post.PostListDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 进程内热榜快照：缓存组装好的 PostListDTO 列表。
+ * 快照过半生命周期后由后台线程提前刷新（refresh-ahead），过期或缺失时只允许一个线程回源（single-flight），
+ * 其余线程等待同一次加载的结果。
+ * 删帖剔除在 loadLock 下进行并递增代数；后台刷新在锁外加载，装入时代数已变说明加载期间有帖子被剔除，丢弃结果重新加载。
+ */
+@Slf4j
+@Component
+public class HotPostListCache {
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final AtomicLong generation = new AtomicLong();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-post-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+
+    @Value("${post.hot.snapshot-ttl-ms:60000}")
+    private long ttlMillis;
+
+    @Value("${post.hot.snapshot-refresh-ahead-ms:30000}")
+    private long refreshAheadMillis;
+
+    public List<PostListDTO> get(Supplier<List<PostListDTO>> loader) {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && now - current.loadedAt() < ttlMillis) {
+            if (now - current.loadedAt() >= refreshAheadMillis) {
+                refreshAsync(loader);
+            }
+            return current.posts();
+        }
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (current != null && System.currentTimeMillis() - current.loadedAt() < ttlMillis) {
+                return current.posts();
+            }
+            Snapshot loaded = new Snapshot(loader.get(), System.currentTimeMillis());
+            snapshot = loaded;
+            return loaded.posts();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * 帖子被删除时立即从快照中剔除，并触发一次后台刷新补齐列表。
+     * 在 loadLock 下执行：正在进行的同步加载先完成再剔除，进行中的后台刷新因代数变化重新加载
+     */
+    public void evict(Long postId, Supplier<List<PostListDTO>> loader) {
+        loadLock.lock();
+        try {
+            generation.incrementAndGet();
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            boolean contained = current.posts().stream().anyMatch(post -> Objects.equals(post.getId(), postId));
+            if (!contained) {
+                return;
+            }
+            snapshot = new Snapshot(current.posts().stream()
+                    .filter(post -> !Objects.equals(post.getId(), postId))
+                    .toList(), current.loadedAt());
+        } finally {
+            loadLock.unlock();
+        }
+        refreshAsync(loader);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void refreshAsync(Supplier<List<PostListDTO>> loader) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refresher.execute(() -> {
+            long installed = generation.get();
+            try {
+                installed = refresh(loader);
+            } catch (Exception ex) {
+                // 刷新失败时保留旧快照，等过期后由请求线程重试
+                log.warn("Refresh hot post snapshot failed: {}", ex.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+            // 装入之后又有剔除时，那次剔除触发的刷新已被上面的 refreshing 挡掉，在这里补上
+            if (generation.get() != installed) {
+                refreshAsync(loader);
+            }
+        });
+    }
+
+    /**
+     * 锁外加载，锁内按代数装入；加载期间有剔除时丢弃结果重新加载。返回装入时的代数
+     */
+    private long refresh(Supplier<List<PostListDTO>> loader) {
+        while (true) {
+            long seen = generation.get();
+            List<PostListDTO> posts = loader.get();
+            loadLock.lock();
+            try {
+                if (generation.get() == seen) {
+                    snapshot = new Snapshot(posts, System.currentTimeMillis());
+                    return seen;
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+    }
+
+    private record Snapshot(List<PostListDTO> posts, long loadedAt) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.hnu.campus.cache;
+
+import com.hnu.campus.entity.Post;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 带时间衰减的热榜。
+ * ZSET 中存的是以 base 时刻为基准的指数加权和：每次浏览/点赞在 t 时刻贡献 w * e^(λ(t - base))，
+ * 越新的行为权重越大，等价于所有历史行为按半衰期衰减，且只需 ZINCRBY 增量更新，不需要全表重算。
+ * 定时把 base 推进到当前时刻并整体缩放（rebase），避免分值无限增长。
+ */
+@Slf4j
+@Component
+public class HotPostRanking {
+    public static final String HOT_POST_KEY = "hot:posts";
+    public static final String BASE_KEY = "hot:posts:base";
+    public static final double VIEW_WEIGHT = 0.3;
+    public static final double LIKE_WEIGHT = 0.7;
+
+    /**
+     * KEYS: hot key, base key；ARGV: now(秒), λ(每秒), 依次为 member, weight。批量累加，不返回分值
+     */
+    private static final DefaultRedisScript<Long> TOUCH_BATCH_SCRIPT = new DefaultRedisScript<>(
+            "local base = redis.call('GET', KEYS[2]) "
+                    + "if not base then base = ARGV[1]; redis.call('SET', KEYS[2], base) end "
+                    + "local factor = math.exp((tonumber(ARGV[1]) - tonumber(base)) * tonumber(ARGV[2])) "
+                    + "for i = 3, #ARGV, 2 do "
+                    + "  redis.call('ZINCRBY', KEYS[1], tonumber(ARGV[i + 1]) * factor, ARGV[i]) "
+                    + "end "
+                    + "return (#ARGV - 2) / 2",
+            Long.class);
+
+    /**
+     * KEYS: hot key, base key；ARGV: now(秒), λ(每秒), 淘汰阈值。
+     * 整体乘以 e^(λ(base - now)) 并把 base 推进到 now，同时淘汰已经衰减到阈值以下的帖子。
+     */
+    private static final DefaultRedisScript<Long> REBASE_SCRIPT = new DefaultRedisScript<>(
+            "local base = redis.call('GET', KEYS[2]) "
+                    + "if not base then redis.call('SET', KEYS[2], ARGV[1]) return 0 end "
+                    + "local factor = math.exp((tonumber(base) - tonumber(ARGV[1])) * tonumber(ARGV[2])) "
+                    + "if redis.call('EXISTS', KEYS[1]) == 1 then "
+                    + "  redis.call('ZUNIONSTORE', KEYS[1], 1, KEYS[1], 'WEIGHTS', tostring(factor)) "
+                    + "  redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[3]) "
+                    + "end "
+                    + "redis.call('SET', KEYS[2], ARGV[1]) "
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${post.hot.half-life-hours:24}")
+    private double halfLifeHours;
+
+    @Value("${post.hot.prune-threshold:0.01}")
+    private double pruneThreshold;
+
+    public HotPostRanking(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 批量累加浏览热度，views 为各帖子本批次的浏览次数
+     */
+    public void recordViews(Map<Long, Long> views) {
+        if (views.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(views.size() * 2 + 2);
+        args.add(String.valueOf(nowSeconds()));
+        args.add(String.valueOf(lambda()));
+        views.forEach((postId, count) -> {
+            args.add(String.valueOf(postId));
+            args.add(String.valueOf(count * VIEW_WEIGHT));
+        });
+        redisTemplate.execute(TOUCH_BATCH_SCRIPT, List.of(HOT_POST_KEY, BASE_KEY), args.toArray());
+    }
+
+    public void remove(Long postId) {
+        redisTemplate.opsForZSet().remove(HOT_POST_KEY, String.valueOf(postId));
+    }
+
+    public Set<String> topIds(int count) {
+        return redisTemplate.opsForZSet().reverseRange(HOT_POST_KEY, 0, count - 1);
+    }
+
+    /**
+     * 热榜为空时用数据库数据初始化，历史浏览/点赞视为发生在发帖时刻
+     */
+    public void seed(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return;
+        }
+        long now = nowSeconds();
+        Boolean baseInitialized = redisTemplate.opsForValue().setIfAbsent(BASE_KEY, String.valueOf(now));
+        long base = Boolean.TRUE.equals(baseInitialized) ? now : readBase(now);
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (Post post : posts) {
+            double popularity = popularity(post.getViewCount(), post.getLikeCount());
+            double raw = popularity * Math.exp((toSeconds(post.getCreateTime()) - base) * lambda());
+            tuples.add(ZSetOperations.TypedTuple.of(String.valueOf(post.getId()), raw));
+        }
+        redisTemplate.opsForZSet().addIfAbsent(HOT_POST_KEY, tuples);
+    }
+
+    @Scheduled(fixedDelayString = "${post.hot.rebase-interval-ms:3600000}")
+    public void rebase() {
+        redisTemplate.execute(REBASE_SCRIPT, List.of(HOT_POST_KEY, BASE_KEY),
+                String.valueOf(nowSeconds()), String.valueOf(lambda()), String.valueOf(pruneThreshold));
+        log.debug("Rebased hot post ranking.");
+    }
+
+    private long readBase(long fallback) {
+        String base = redisTemplate.opsForValue().get(BASE_KEY);
+        if (base == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(base);
+        } catch (NumberFormatException ex) {
+            return fallback;
+        }
+    }
+
+    /**
+     * 衰减系数 λ（每秒），批量落库时在 SQL 中按同一公式计算热度快照
+     */
+    public double lambda() {
+        return Math.log(2) / (halfLifeHours * 3600);
+    }
+
+    private static double popularity(Integer viewCount, Integer likeCount) {
+        int views = viewCount == null ? 0 : viewCount;
+        int likes = likeCount == null ? 0 : likeCount;
+        return views * VIEW_WEIGHT + likes * LIKE_WEIGHT;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        if (time == null) {
+            return nowSeconds();
+        }
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
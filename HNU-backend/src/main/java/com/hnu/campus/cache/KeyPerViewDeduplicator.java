@@ -0,0 +1,24 @@
+package com.hnu.campus.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 精确去重：每个用户每个帖子一个带过期时间的 key，结果准确，但浏览高峰时 key 数量与浏览人次同量级。
+ */
+@Component
+@ConditionalOnProperty(name = "post.view-dedup.mode", havingValue = "key", matchIfMissing = true)
+public class KeyPerViewDeduplicator implements ViewDeduplicator {
+    private static final String VIEW_DEDUP_PREFIX = "post:view:dedup:";
+
+    @Value("${post.view-dedup.window-minutes:10}")
+    private long windowMinutes;
+
+    @Override
+    public Spec spec(Long postId, Long userId) {
+        return new Spec("key", List.of(VIEW_DEDUP_PREFIX + postId + ":" + userId), windowMinutes * 60, new long[0]);
+    }
+}
@@ -0,0 +1,109 @@
+package com.hnu.campus.cache;
+
+import com.hnu.campus.mapper.LikeCountShardMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热点行的点赞计数分片。
+ * 按秒统计每个帖子/评论在本实例的点赞次数，超过阈值后的一段时间内点赞不再更新原行的 like_count，
+ * 而是累加到 like_count_shards 中随机的一个分片，把一行的行锁竞争分散到 N 行；
+ * {@link com.hnu.campus.task.LikeCountFoldTask} 定时把分片增量合并回原行，读取时对热点行补上未合并的分片之和。
+ */
+@Component
+public class LikeCountShards {
+    public static final String POST = "post";
+    public static final String COMMENT = "comment";
+
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final LikeCountShardMapper shardMapper;
+
+    @Value("${post.like.shard.count:16}")
+    private int shardCount;
+
+    @Value("${post.like.shard.hot-threshold-per-second:50}")
+    private int hotThreshold;
+
+    @Value("${post.like.shard.hot-hold-seconds:300}")
+    private long hotHoldSeconds;
+
+    public LikeCountShards(LikeCountShardMapper shardMapper) {
+        this.shardMapper = shardMapper;
+    }
+
+    /**
+     * 记录一次点赞切换，返回这次是否应写入分片
+     */
+    public boolean recordAndCheckHot(String targetType, Long targetId) {
+        long second = System.currentTimeMillis() / 1000;
+        Window window = windows.computeIfAbsent(targetType + ":" + targetId, key -> new Window(second));
+        return window.record(second, hotThreshold, hotHoldSeconds);
+    }
+
+    public int randomShard() {
+        return ThreadLocalRandom.current().nextInt(shardCount);
+    }
+
+    /**
+     * 本实例判定为热点的目标中尚未合并回原行的分片增量；非热点目标不查库
+     */
+    public Map<Long, Long> pendingDeltas(String targetType, Collection<Long> targetIds) {
+        long second = System.currentTimeMillis() / 1000;
+        List<Long> hotIds = targetIds.stream()
+                .filter(id -> {
+                    Window window = windows.get(targetType + ":" + id);
+                    return window != null && window.hotUntil >= second;
+                })
+                .toList();
+        if (hotIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Map<String, Object> row : shardMapper.sumDeltas(targetType, hotIds)) {
+            if (row.get("target_id") instanceof Number id && row.get("delta") instanceof Number delta) {
+                deltas.put(id.longValue(), delta.longValue());
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 清理已冷却且近期没有点赞的统计窗口
+     */
+    public void prune() {
+        long second = System.currentTimeMillis() / 1000;
+        windows.entrySet().removeIf(entry -> entry.getValue().hotUntil < second
+                && entry.getValue().second < second - 1);
+    }
+
+    private static final class Window {
+        private volatile long second;
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile long hotUntil;
+
+        private Window(long second) {
+            this.second = second;
+        }
+
+        private boolean record(long now, int threshold, long holdSeconds) {
+            if (second != now) {
+                // 进入新的一秒时重置计数；并发重置只会让计数偏小，不影响正确性
+                second = now;
+                count.set(0);
+            }
+            if (count.incrementAndGet() >= threshold) {
+                hotUntil = now + holdSeconds;
+            }
+            return hotUntil >= now;
+        }
+    }
+}
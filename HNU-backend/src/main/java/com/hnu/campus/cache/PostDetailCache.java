@@ -0,0 +1,162 @@
+package com.hnu.campus.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hnu.campus.dto.post.PostDetailDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 帖子详情读模型缓存。
+ * 只缓存与用户无关的部分（帖子字段、作者昵称、分类名、评论树、数据库中的浏览基数），
+ * 点赞状态、实时浏览量和热度在读取后叠加。
+ * 缓存 key 带版本号：帖子、评论、点赞发生变化时递增版本，旧版本的缓存不再被读取，随 TTL 过期。
+ */
+@Slf4j
+@Component
+public class PostDetailCache {
+    private static final String VERSION_PREFIX = "post:detail:version:";
+    private static final String DETAIL_PREFIX = "post:detail:";
+
+    /**
+     * KEYS: 版本key；ARGV: 详情key前缀。一次往返取回当前版本号及该版本的缓存
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> GET_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('GET', KEYS[1]) or '0' "
+                    + "local detail = redis.call('GET', ARGV[1] .. version) "
+                    + "return {version, detail or ''}",
+            List.class);
+
+    /**
+     * KEYS: 版本key；ARGV: 详情key前缀。递增版本失败时的兜底：删除当前版本的详情缓存
+     */
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('DEL', ARGV[1] .. (redis.call('GET', KEYS[1]) or '0'))",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${post.detail.cache.ttl-seconds:1800}")
+    private long ttlSeconds;
+
+    public PostDetailCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 读取当前版本的详情；未命中时 detail 为 null，调用方按返回的版本号回填
+     */
+    @SuppressWarnings("unchecked")
+    public Entry get(Long postId) {
+        List<Object> raw;
+        try {
+            raw = redisTemplate.execute(GET_SCRIPT, List.of(VERSION_PREFIX + postId), detailKeyPrefix(postId));
+        } catch (Exception ex) {
+            log.warn("Read post detail cache failed: {}", ex.getMessage());
+            return new Entry(null, null);
+        }
+        if (raw == null || raw.size() < 2) {
+            return new Entry(null, null);
+        }
+        String version = String.valueOf(raw.get(0));
+        String json = String.valueOf(raw.get(1));
+        if (json.isEmpty()) {
+            return new Entry(version, null);
+        }
+        try {
+            return new Entry(version, objectMapper.readValue(json, PostDetailDTO.class));
+        } catch (JsonProcessingException ex) {
+            return new Entry(version, null);
+        }
+    }
+
+    /**
+     * 按读取时的版本回填；期间版本已递增时写入的是旧版本 key，不会被读到
+     */
+    public void put(Long postId, String version, PostDetailDTO detail) {
+        if (version == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(detailKeyPrefix(postId) + version,
+                    objectMapper.writeValueAsString(detail), Duration.ofSeconds(ttlSeconds));
+        } catch (Exception ex) {
+            log.warn("Write post detail cache failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * 在事务中调用时推迟到提交之后递增，避免其他请求在提交前按新版本回填旧数据
+     */
+    public void bumpVersion(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(postId);
+                }
+            });
+            return;
+        }
+        increment(postId);
+    }
+
+    public void bumpVersions(Collection<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (Long postId : postIds) {
+                    stringConnection.incr(VERSION_PREFIX + postId);
+                }
+                return null;
+            });
+        } catch (Exception ex) {
+            log.warn("Bump post detail versions failed, evicting {} posts: {}", postIds.size(), ex.getMessage());
+            postIds.forEach(this::evict);
+        }
+    }
+
+    private void increment(Long postId) {
+        try {
+            redisTemplate.opsForValue().increment(VERSION_PREFIX + postId);
+        } catch (Exception ex) {
+            log.warn("Bump post detail version failed, postId={}: {}", postId, ex.getMessage());
+            evict(postId);
+        }
+    }
+
+    private void evict(Long postId) {
+        try {
+            redisTemplate.execute(EVICT_SCRIPT, List.of(VERSION_PREFIX + postId), detailKeyPrefix(postId));
+        } catch (Exception ex) {
+            log.warn("Evict post detail cache failed, postId={}: {}", postId, ex.getMessage());
+        }
+    }
+
+    private static String detailKeyPrefix(Long postId) {
+        return DETAIL_PREFIX + postId + ":";
+    }
+
+    public record Entry(String version, PostDetailDTO detail) {
+    }
+}
@@ -0,0 +1,282 @@
+package com.hnu.campus.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hnu.campus.entity.PostLike;
+import com.hnu.campus.mapper.PostLikeMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 帖子点赞的 Redis 状态：每个帖子一个点赞用户集合和一个点赞计数，点赞/取消点赞由
+ * {@link PostStatsScripts#like} 原子切换，同时把 "postId:userId" 的最终状态写入待落库哈希。
+ * {@link com.hnu.campus.task.PostLikeSyncTask} 定时把待落库哈希改名为处理中哈希，按块取出写回 post_likes 和 posts.like_count，
+ * 每块落库后删除对应字段；取块和确认都先校验并续期落库锁，锁已被其他实例取得时中止，不会在新状态之后重放旧状态。
+ * 批次ID在改名和每次确认时更换，加载点赞状态时据此判断读库期间是否有落库。
+ * 计数 key 同时作为"已加载"标记：不存在时由调用方从数据库加载点赞用户后重试。
+ * 帖子分类不会修改，本地缓存 postId → 分类ID，已加载的帖子点赞只需一次 Redis 调用；帖子删除时清除点赞状态并写入删除标记，
+ * 之后的点赞找不到计数 key，回源数据库校验状态，删除标记阻止并发请求重新加载。
+ */
+@Slf4j
+@Component
+public class PostLikeEngine {
+    private static final String LIKERS_PREFIX = "post:like:users:";
+    private static final String COUNT_PREFIX = "post:like:count:";
+    private static final String DELETED_PREFIX = "post:deleted:";
+    public static final String PENDING_KEY = "post:like:pending";
+    public static final String PROCESSING_KEY = "post:like:pending:processing";
+    public static final String BATCH_ID_KEY = "post:like:pending:processing:id";
+    private static final String SYNC_LOCK_KEY = "post:like:sync:lock";
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int LOAD_ATTEMPTS = 3;
+
+    /**
+     * KEYS: 点赞用户集合, 点赞计数, 待落库哈希, 处理中哈希, 批次ID, 删除标记；ARGV: 过期秒数, 是否最后一批, postId, 读库前的批次ID, userId...。
+     * 计数 key 已存在说明其他请求已加载完成、删除标记存在说明帖子已删除，都直接返回 0；批次ID与读库前不同说明读库期间有一块落库，不写入并返回 -1；
+     * 分批加载时最后一批才写入计数 key。待落库/处理中哈希里有该用户的状态时以哈希为准（待落库较新），取消点赞的不加入集合
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 1 or redis.call('EXISTS', KEYS[6]) == 1 then return 0 end "
+                    + "if (redis.call('GET', KEYS[5]) or '') ~= ARGV[4] then return -1 end "
+                    + "for i = 5, #ARGV do "
+                    + "  local field = ARGV[3] .. ':' .. ARGV[i] "
+                    + "  local state = redis.call('HGET', KEYS[3], field) "
+                    + "  if not state then state = redis.call('HGET', KEYS[4], field) end "
+                    + "  if state ~= '0' then redis.call('SADD', KEYS[1], ARGV[i]) end "
+                    + "end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+                    + "if ARGV[2] == '1' then "
+                    + "  redis.call('SET', KEYS[2], redis.call('SCARD', KEYS[1]), 'EX', ARGV[1]) "
+                    + "end "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * KEYS: 落库锁, 待落库哈希, 处理中哈希, 批次ID；ARGV: 持有者标识, 锁租期毫秒, 新批次ID, 每块条数。
+     * 处理中哈希为空时把待落库哈希改名进来并更换批次ID，然后用 HSCAN 取出最多约一块的条目。
+     * 返回 {1, field, value, ...}，锁已丢失时返回 {-1}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> NEXT_CHUNK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return {-1} end "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                    + "if redis.call('EXISTS', KEYS[3]) == 0 then "
+                    + "  if redis.call('EXISTS', KEYS[2]) == 0 then return {1} end "
+                    + "  redis.call('RENAME', KEYS[2], KEYS[3]) "
+                    + "  redis.call('SET', KEYS[4], ARGV[3]) "
+                    + "end "
+                    + "local limit = tonumber(ARGV[4]) * 2 "
+                    + "local result = {1} "
+                    + "local cursor = '0' "
+                    + "repeat "
+                    + "  local page = redis.call('HSCAN', KEYS[3], cursor, 'COUNT', ARGV[4]) "
+                    + "  cursor = page[1] "
+                    + "  for i = 1, #page[2] do result[#result + 1] = page[2][i] end "
+                    + "until cursor == '0' or #result > limit "
+                    + "return result",
+            List.class);
+
+    /**
+     * KEYS: 落库锁, 处理中哈希, 批次ID；ARGV: 持有者标识, 锁租期毫秒, 新批次ID, field...。
+     * 锁仍由自己持有时删除已落库的字段并更换批次ID，处理中哈希删空时一并删除批次ID；锁已丢失时返回 -1
+     */
+    private static final DefaultRedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return -1 end "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                    + "for i = 4, #ARGV do redis.call('HDEL', KEYS[2], ARGV[i]) end "
+                    + "if redis.call('EXISTS', KEYS[2]) == 0 then redis.call('DEL', KEYS[3]) "
+                    + "else redis.call('SET', KEYS[3], ARGV[3]) end "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * KEYS: 锁；ARGV: 持有者标识
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+                    + "return 0",
+            Long.class);
+
+    private final ConcurrentHashMap<Long, Integer> categories = new ConcurrentHashMap<>();
+    private final StringRedisTemplate redisTemplate;
+    private final PostLikeMapper postLikeMapper;
+
+    @Value("${post.like.state-ttl-seconds:604800}")
+    private long stateTtlSeconds;
+
+    @Value("${post.like.sync-lock-ms:30000}")
+    private long syncLockMillis;
+
+    @Value("${post.like.category-cache-size:100000}")
+    private int categoryCacheSize;
+
+    public PostLikeEngine(StringRedisTemplate redisTemplate, PostLikeMapper postLikeMapper) {
+        this.redisTemplate = redisTemplate;
+        this.postLikeMapper = postLikeMapper;
+    }
+
+    public static String likersKey(Long postId) {
+        return LIKERS_PREFIX + postId;
+    }
+
+    public static String countKey(Long postId) {
+        return COUNT_PREFIX + postId;
+    }
+
+    /**
+     * 删帖标记，详情读取时据此拒绝已缓存的详情
+     */
+    public static String deletedKey(Long postId) {
+        return DELETED_PREFIX + postId;
+    }
+
+    public static String pendingField(Long postId, Long userId) {
+        return postId + ":" + userId;
+    }
+
+    public long stateTtlSeconds() {
+        return stateTtlSeconds;
+    }
+
+    /**
+     * 本地缓存的帖子分类，未缓存时返回 null
+     */
+    public Integer cachedCategory(Long postId) {
+        return categories.get(postId);
+    }
+
+    /**
+     * 缓存帖子分类；超过上限时整体清空，之后按需重新从数据库读取
+     */
+    public void rememberCategory(Long postId, Integer categoryId) {
+        if (categoryId == null) {
+            return;
+        }
+        if (categories.size() >= categoryCacheSize) {
+            categories.clear();
+        }
+        categories.put(postId, categoryId);
+    }
+
+    /**
+     * 帖子删除后清除点赞用户集合和计数并写入删除标记（与点赞状态同样的过期时间），之后的点赞回源数据库返回帖子不存在。
+     * 待落库哈希里该帖子的状态照常落库
+     */
+    public void evict(Long postId) {
+        categories.remove(postId);
+        try {
+            redisTemplate.opsForValue().set(deletedKey(postId), "1", Duration.ofSeconds(stateTtlSeconds));
+            redisTemplate.delete(List.of(likersKey(postId), countKey(postId)));
+        } catch (Exception ex) {
+            log.warn("Evict post like state failed, postId={}: {}", postId, ex.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库加载帖子的点赞用户，尚未落库的状态以待落库哈希为准。并发加载时先完成的一方生效，其余直接返回；
+     * 读库期间有一块点赞落库时重新读库，最多重试 LOAD_ATTEMPTS 次
+     */
+    public void load(Long postId) {
+        List<String> keys = List.of(likersKey(postId), countKey(postId), PENDING_KEY, PROCESSING_KEY, BATCH_ID_KEY,
+                deletedKey(postId));
+        for (int attempt = 0; attempt < LOAD_ATTEMPTS; attempt++) {
+            String batchId = redisTemplate.opsForValue().get(BATCH_ID_KEY);
+            List<Object> userIds = postLikeMapper.selectObjs(new LambdaQueryWrapper<PostLike>()
+                    .select(PostLike::getUserId)
+                    .eq(PostLike::getPostId, postId));
+            if (loadOnce(keys, postId, batchId == null ? "" : batchId, userIds)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 返回 false 表示读库期间有落库，需要重新读库
+     */
+    private boolean loadOnce(List<String> keys, Long postId, String batchId, List<Object> userIds) {
+        int from = 0;
+        do {
+            int to = Math.min(from + LOAD_BATCH_SIZE, userIds.size());
+            List<String> args = new ArrayList<>(to - from + 4);
+            args.add(String.valueOf(stateTtlSeconds));
+            args.add(to == userIds.size() ? "1" : "0");
+            args.add(String.valueOf(postId));
+            args.add(batchId);
+            for (Object userId : userIds.subList(from, to)) {
+                args.add(String.valueOf(userId));
+            }
+            Long result = redisTemplate.execute(LOAD_SCRIPT, keys, args.toArray());
+            if (result == null || result == 0) {
+                return true;
+            }
+            if (result < 0) {
+                return false;
+            }
+            from = to;
+        } while (from < userIds.size());
+        return true;
+    }
+
+    /**
+     * 取出下一块待落库的点赞状态，key 为 postId:userId，value 为 1（点赞）/0（取消）；没有待落库状态时返回空表。
+     * 落库成功后用 {@link #ack} 删除这些字段；失败时不确认，下一轮会重新取到。落库锁已丢失时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, String> nextChunk(String owner, int size) {
+        List<Object> raw = redisTemplate.execute(NEXT_CHUNK_SCRIPT,
+                List.of(SYNC_LOCK_KEY, PENDING_KEY, PROCESSING_KEY, BATCH_ID_KEY),
+                owner, String.valueOf(syncLockMillis), UUID.randomUUID().toString(), String.valueOf(size));
+        if (raw == null || raw.isEmpty() || !(raw.get(0) instanceof Number status) || status.longValue() < 0) {
+            return null;
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 1; i + 1 < raw.size(); i += 2) {
+            entries.put(String.valueOf(raw.get(i)), String.valueOf(raw.get(i + 1)));
+        }
+        return entries;
+    }
+
+    /**
+     * 确认一块已落库，返回 false 表示落库锁已丢失
+     */
+    public boolean ack(String owner, Collection<String> fields) {
+        List<String> args = new ArrayList<>(fields.size() + 3);
+        args.add(owner);
+        args.add(String.valueOf(syncLockMillis));
+        args.add(UUID.randomUUID().toString());
+        args.addAll(fields);
+        Long result = redisTemplate.execute(ACK_SCRIPT, List.of(SYNC_LOCK_KEY, PROCESSING_KEY, BATCH_ID_KEY),
+                args.toArray());
+        return result != null && result > 0;
+    }
+
+    /**
+     * 获取落库锁，多实例中同一时刻只有一个在落库；返回持有者标识，未获取到返回 null
+     */
+    public String tryLockSync() {
+        String owner = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue()
+                .setIfAbsent(SYNC_LOCK_KEY, owner, Duration.ofMillis(syncLockMillis));
+        return Boolean.TRUE.equals(locked) ? owner : null;
+    }
+
+    public void unlockSync(String owner) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(SYNC_LOCK_KEY), owner);
+    }
+
+    public long backlog() {
+        Long size = redisTemplate.opsForHash().size(PENDING_KEY);
+        return size == null ? 0 : size;
+    }
+}
@@ -0,0 +1,272 @@
+package com.hnu.campus.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 帖子详情与点赞路径上的 Redis 操作合并脚本，每次请求只需一次往返。
+ * 点赞状态以 Redis 为准，数据库由 {@link PostLikeEngine} 的待落库哈希异步追上。
+ * 脚本在启动时 SCRIPT LOAD 预加载，执行时走 EVALSHA（RedisTemplate 遇到 NOSCRIPT 会自动退回 EVAL）。
+ */
+@Slf4j
+@Component
+public class PostStatsScripts {
+    /**
+     * KEYS: 浏览计数, 热榜, 热榜基准时间, 点赞用户集合, 点赞计数, 删帖标记, 去重key...；
+     * ARGV: member, now(秒), λ, 去重模式, 去重过期秒数, 当前用户ID(匿名为空串), bloom 哈希位...。
+     * 返回 {是否首次浏览, Redis 中未落库的浏览增量, 折算到当前时刻的热度, 点赞数(未加载为空串), 当前用户是否已点赞}；
+     * 帖子已删除时返回 {-1}，不记浏览
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> DETAIL_VIEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[6]) == 1 then return {-1} end "
+                    + "local first = 1 "
+                    + "local mode = ARGV[4] "
+                    + "if mode == 'key' then "
+                    + "  if not redis.call('SET', KEYS[7], '1', 'NX', 'EX', ARGV[5]) then first = 0 end "
+                    + "elseif mode == 'bloom' then "
+                    + "  local function contains(key) "
+                    + "    for i = 7, #ARGV do "
+                    + "      if redis.call('GETBIT', key, ARGV[i]) == 0 then return false end "
+                    + "    end "
+                    + "    return true "
+                    + "  end "
+                    + "  if contains(KEYS[7]) then "
+                    + "    first = 0 "
+                    + "  else "
+                    + "    local seen = contains(KEYS[8]) "
+                    + "    for i = 7, #ARGV do redis.call('SETBIT', KEYS[7], ARGV[i], 1) end "
+                    + "    redis.call('EXPIRE', KEYS[7], ARGV[5]) "
+                    + "    if seen then first = 0 end "
+                    + "  end "
+                    + "end "
+                    + "local delta = redis.call('GET', KEYS[1]) or '0' "
+                    + "local score = tonumber(redis.call('ZSCORE', KEYS[2], ARGV[1]) or '0') "
+                    + "local base = redis.call('GET', KEYS[3]) "
+                    + "if base then score = score * math.exp((tonumber(base) - tonumber(ARGV[2])) * tonumber(ARGV[3])) end "
+                    + "local likes = redis.call('GET', KEYS[5]) or '' "
+                    + "local liked = 0 "
+                    + "if likes ~= '' and ARGV[6] ~= '' then liked = redis.call('SISMEMBER', KEYS[4], ARGV[6]) end "
+                    + "return {first, delta, tostring(score), likes, liked}",
+            List.class);
+
+    /**
+     * 点赞对热榜和分类热榜的更新，由下面两个脚本共用。小时桶里的负分保留，
+     * 与早先小时桶里的点赞在合并时抵消，见 {@link TrendingPostBuckets#topIds}。
+     * 调用前需定义 hotKey, baseKey, firstBucket, member, now, lambda, weight(取消点赞为负), bucketTtl
+     */
+    private static final String RANK_LIKE_LUA =
+            "local base = redis.call('GET', baseKey) "
+                    + "if not base then base = now; redis.call('SET', baseKey, base) end "
+                    + "local score = tonumber(redis.call('ZINCRBY', hotKey, "
+                    + "weight * math.exp((tonumber(now) - tonumber(base)) * lambda), member)) "
+                    + "if score < 0 then redis.call('ZADD', hotKey, 0, member) end "
+                    + "for i = firstBucket, #KEYS do "
+                    + "  redis.call('ZINCRBY', KEYS[i], weight, member) "
+                    + "  redis.call('EXPIRE', KEYS[i], bucketTtl) "
+                    + "end ";
+
+    /**
+     * KEYS: 点赞用户集合, 点赞计数, 待落库哈希, 用户点赞索引, 用户点赞索引版本, 热榜, 热榜基准时间, 当前小时的分类热榜桶...；
+     * ARGV: userId, member(postId), 待落库字段, now(秒), λ, 点赞权重, 分类桶过期秒数, 点赞状态过期秒数, 用户索引过期秒数。
+     * 点赞状态未加载时返回 -1，否则切换点赞并更新热榜，返回 1（点赞）/0（取消点赞）
+     */
+    private static final DefaultRedisScript<Long> LIKE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 0 then return -1 end "
+                    + "local liked = 1 "
+                    + "if redis.call('SADD', KEYS[1], ARGV[1]) == 1 then "
+                    + "  redis.call('INCR', KEYS[2]) "
+                    + "else "
+                    + "  redis.call('SREM', KEYS[1], ARGV[1]) "
+                    + "  liked = 0 "
+                    + "  if tonumber(redis.call('DECR', KEYS[2])) < 0 then redis.call('SET', KEYS[2], 0) end "
+                    + "end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[8]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[8]) "
+                    + "redis.call('HSET', KEYS[3], ARGV[3], liked) "
+                    + "local indexKey, versionKey, indexId, indexTtl = KEYS[4], KEYS[5], ARGV[2], ARGV[9] "
+                    + UserLikeIndex.RECORD_LUA
+                    + "local hotKey, baseKey, firstBucket = KEYS[6], KEYS[7], 8 "
+                    + "local member, now, lambda, bucketTtl = ARGV[2], ARGV[4], tonumber(ARGV[5]), ARGV[7] "
+                    + "local weight = tonumber(ARGV[6]) "
+                    + "if liked == 0 then weight = -weight end "
+                    + RANK_LIKE_LUA
+                    + "return liked",
+            Long.class);
+
+    /**
+     * 点赞已在数据库中切换（post.like.mode=sql）时只更新热榜。
+     * KEYS: 热榜, 热榜基准时间, 当前小时的分类热榜桶...；ARGV: member, now(秒), λ, 点赞权重(取消点赞为负), 分类桶过期秒数
+     */
+    private static final DefaultRedisScript<Long> RANK_LIKE_SCRIPT = new DefaultRedisScript<>(
+            "local hotKey, baseKey, firstBucket = KEYS[1], KEYS[2], 3 "
+                    + "local member, now, lambda, bucketTtl = ARGV[1], ARGV[2], tonumber(ARGV[3]), ARGV[5] "
+                    + "local weight = tonumber(ARGV[4]) "
+                    + RANK_LIKE_LUA
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final HotPostRanking hotPostRanking;
+    private final TrendingPostBuckets trendingPostBuckets;
+    private final ViewDeduplicator viewDeduplicator;
+    private final PostLikeEngine postLikeEngine;
+    private final UserLikeIndex userLikeIndex;
+
+    public PostStatsScripts(StringRedisTemplate redisTemplate,
+                            HotPostRanking hotPostRanking,
+                            TrendingPostBuckets trendingPostBuckets,
+                            ViewDeduplicator viewDeduplicator,
+                            PostLikeEngine postLikeEngine,
+                            UserLikeIndex userLikeIndex) {
+        this.redisTemplate = redisTemplate;
+        this.hotPostRanking = hotPostRanking;
+        this.trendingPostBuckets = trendingPostBuckets;
+        this.viewDeduplicator = viewDeduplicator;
+        this.postLikeEngine = postLikeEngine;
+        this.userLikeIndex = userLikeIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.scriptingCommands().scriptLoad(
+                        DETAIL_VIEW_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                connection.scriptingCommands().scriptLoad(
+                        LIKE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                connection.scriptingCommands().scriptLoad(
+                        RANK_LIKE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                return null;
+            });
+        } catch (Exception ex) {
+            log.warn("Preload post stats scripts failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * 浏览详情：去重判断、读取未落库浏览增量、当前热度和 Redis 中的点赞状态。userId 为空（匿名）时不去重。
+     * 浏览计数本身由 {@link PostViewBuffer} 在本地累加。
+     */
+    @SuppressWarnings("unchecked")
+    public DetailView view(Long postId, Long userId) {
+        ViewDeduplicator.Spec dedup = userId == null
+                ? ViewDeduplicator.Spec.NONE
+                : viewDeduplicator.spec(postId, userId);
+        List<String> keys = new ArrayList<>(6 + dedup.keys().size());
+        keys.add(PostViewCounter.counterKey(postId));
+        keys.add(HotPostRanking.HOT_POST_KEY);
+        keys.add(HotPostRanking.BASE_KEY);
+        keys.add(PostLikeEngine.likersKey(postId));
+        keys.add(PostLikeEngine.countKey(postId));
+        keys.add(PostLikeEngine.deletedKey(postId));
+        keys.addAll(dedup.keys());
+        List<String> args = new ArrayList<>(6 + dedup.offsets().length);
+        args.add(String.valueOf(postId));
+        args.add(String.valueOf(System.currentTimeMillis() / 1000));
+        args.add(String.valueOf(hotPostRanking.lambda()));
+        args.add(dedup.mode());
+        args.add(String.valueOf(dedup.ttlSeconds()));
+        args.add(userId == null ? "" : String.valueOf(userId));
+        for (long offset : dedup.offsets()) {
+            args.add(String.valueOf(offset));
+        }
+        List<Object> raw = redisTemplate.execute(DETAIL_VIEW_SCRIPT, keys, args.toArray());
+        if (raw != null && raw.size() == 1 && toLong(raw.get(0)) < 0) {
+            return DetailView.DELETED;
+        }
+        if (raw == null || raw.size() < 5) {
+            return new DetailView(true, 0, BigDecimal.ZERO, null, null, false);
+        }
+        String likes = String.valueOf(raw.get(3));
+        if (likes.isEmpty()) {
+            return new DetailView(toLong(raw.get(0)) == 1, toLong(raw.get(1)), toScore(raw.get(2)), null, null, false);
+        }
+        return new DetailView(toLong(raw.get(0)) == 1, toLong(raw.get(1)), toScore(raw.get(2)),
+                (int) toLong(likes), userId == null ? null : toLong(raw.get(4)) == 1, false);
+    }
+
+    /**
+     * 切换点赞状态并更新热榜与分类热榜；返回 null 表示该帖子的点赞状态尚未加载到 Redis
+     */
+    public Boolean like(Long postId, Long userId, Integer categoryId) {
+        List<String> keys = new ArrayList<>(9);
+        keys.add(PostLikeEngine.likersKey(postId));
+        keys.add(PostLikeEngine.countKey(postId));
+        keys.add(PostLikeEngine.PENDING_KEY);
+        keys.add(UserLikeIndex.postsKey(userId));
+        keys.add(UserLikeIndex.versionKey(UserLikeIndex.postsKey(userId)));
+        keys.add(HotPostRanking.HOT_POST_KEY);
+        keys.add(HotPostRanking.BASE_KEY);
+        keys.addAll(trendingPostBuckets.currentBucketKeys(categoryId));
+        Long result = redisTemplate.execute(LIKE_SCRIPT, keys,
+                String.valueOf(userId),
+                String.valueOf(postId),
+                PostLikeEngine.pendingField(postId, userId),
+                String.valueOf(System.currentTimeMillis() / 1000),
+                String.valueOf(hotPostRanking.lambda()),
+                String.valueOf(HotPostRanking.LIKE_WEIGHT),
+                String.valueOf(trendingPostBuckets.bucketTtlSeconds()),
+                String.valueOf(postLikeEngine.stateTtlSeconds()),
+                String.valueOf(userLikeIndex.ttlSeconds()));
+        if (result == null || result < 0) {
+            return null;
+        }
+        return result == 1;
+    }
+
+    /**
+     * 数据库已切换点赞状态后，把这次点赞/取消点赞计入热榜与分类热榜
+     */
+    public void rankLike(Long postId, Integer categoryId, boolean liked) {
+        List<String> keys = new ArrayList<>(4);
+        keys.add(HotPostRanking.HOT_POST_KEY);
+        keys.add(HotPostRanking.BASE_KEY);
+        keys.addAll(trendingPostBuckets.currentBucketKeys(categoryId));
+        double weight = liked ? HotPostRanking.LIKE_WEIGHT : -HotPostRanking.LIKE_WEIGHT;
+        redisTemplate.execute(RANK_LIKE_SCRIPT, keys,
+                String.valueOf(postId),
+                String.valueOf(System.currentTimeMillis() / 1000),
+                String.valueOf(hotPostRanking.lambda()),
+                String.valueOf(weight),
+                String.valueOf(trendingPostBuckets.bucketTtlSeconds()));
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static BigDecimal toScore(Object value) {
+        try {
+            return new BigDecimal(String.valueOf(value)).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException ex) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * likeCount / liked 为 null 表示点赞状态未加载到 Redis（或匿名用户），由调用方回源数据库
+     */
+    public record DetailView(boolean firstView, long pendingViews, BigDecimal hotScore,
+                             Integer likeCount, Boolean liked, boolean deleted) {
+        static final DetailView DELETED = new DetailView(false, 0, BigDecimal.ZERO, null, null, true);
+    }
+}
@@ -0,0 +1,202 @@
+package com.hnu.campus.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hnu.campus.entity.Post;
+import com.hnu.campus.mapper.PostMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 帖子时间线缓存：全站和每个分类各一个 ZSET，member 为帖子ID，score 为创建时间。
+ * 只保留最新的 maxSize 条，超出窗口的分页回源数据库。
+ * 删帖时同时在墓碑集合中记下帖子ID，重建时跳过墓碑中的帖子，避免先读库、后写入的重建把刚删除的帖子加回去；
+ * 发帖时无论时间线是否存在都记入该时间线的近期发帖集合，重建时合并进去，避免重建读库之后发的帖子丢失。
+ */
+@Slf4j
+@Component
+public class PostTimelineCache {
+    private static final String GLOBAL_KEY = "timeline:posts:all";
+    private static final String CATEGORY_KEY_PREFIX = "timeline:posts:category:";
+    private static final String REMOVED_KEY = "timeline:posts:removed";
+    private static final String RECENT_SUFFIX = ":recent";
+
+    /**
+     * KEYS: 时间线, 近期发帖集合；ARGV: score, 帖子ID, 条数上限, 当前毫秒, 近期集合保留毫秒。
+     * 先记入近期发帖集合并清理过期成员；时间线已存在时再追加并裁剪，避免在过期后留下只含一条记录的残缺时间线。
+     */
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[4]) "
+                    + "local window = tonumber(ARGV[5]) "
+                    + "redis.call('ZADD', KEYS[2], ARGV[1], ARGV[2]) "
+                    + "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', now - window) "
+                    + "redis.call('PEXPIRE', KEYS[2], window) "
+                    + "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+                    + "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[3]) + 1)) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * KEYS: 墓碑集合, 时间线...；ARGV: 帖子ID, 当前毫秒, 墓碑保留毫秒。
+     * 记录墓碑并清理过期墓碑，再从各时间线移除
+     */
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[2]) "
+                    + "local window = tonumber(ARGV[3]) "
+                    + "redis.call('ZADD', KEYS[1], now, ARGV[1]) "
+                    + "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window) "
+                    + "redis.call('PEXPIRE', KEYS[1], window) "
+                    + "for i = 2, #KEYS do redis.call('ZREM', KEYS[i], ARGV[1]) end "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * KEYS: 时间线, 墓碑集合, 近期发帖集合；ARGV: 条数上限, 有效秒数, 之后为 score/帖子ID 对。
+     * 读库结果与近期发帖集合合并，跳过墓碑中的帖子后写入并裁剪，返回时间线条数
+     */
+    private static final DefaultRedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>(
+            "for i = 3, #ARGV, 2 do "
+                    + "  if not redis.call('ZSCORE', KEYS[2], ARGV[i + 1]) then "
+                    + "    redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1]) "
+                    + "  end "
+                    + "end "
+                    + "local recent = redis.call('ZRANGE', KEYS[3], 0, -1, 'WITHSCORES') "
+                    + "for i = 1, #recent, 2 do "
+                    + "  if not redis.call('ZSCORE', KEYS[2], recent[i]) then "
+                    + "    redis.call('ZADD', KEYS[1], recent[i + 1], recent[i]) "
+                    + "  end "
+                    + "end "
+                    + "local card = redis.call('ZCARD', KEYS[1]) "
+                    + "if card == 0 then return 0 end "
+                    + "local limit = tonumber(ARGV[1]) "
+                    + "if card > limit then "
+                    + "  redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(limit + 1)) "
+                    + "  card = limit "
+                    + "end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[2]) "
+                    + "return card",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PostMapper postMapper;
+
+    @Value("${post.timeline.max-size:500}")
+    private int maxSize;
+
+    @Value("${post.timeline.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    /**
+     * 墓碑和近期发帖集合的保留时间，需要长于一次重建从读库到写入 Redis 的耗时
+     */
+    @Value("${post.timeline.tombstone-ms:60000}")
+    private long tombstoneMillis;
+
+    public PostTimelineCache(StringRedisTemplate redisTemplate, PostMapper postMapper) {
+        this.redisTemplate = redisTemplate;
+        this.postMapper = postMapper;
+    }
+
+    /**
+     * 读取某一页的帖子ID，按创建时间倒序。
+     * 返回 null 表示该页不在缓存窗口内或缓存不可用，调用方需要回源数据库。
+     */
+    public List<Long> getPage(Integer categoryId, int page, int size) {
+        long start = (long) Math.max(page - 1, 0) * size;
+        long end = start + size - 1;
+        if (end >= maxSize) {
+            return null;
+        }
+        String key = keyOf(categoryId);
+        try {
+            Long card = redisTemplate.opsForZSet().zCard(key);
+            if (card == null || card == 0) {
+                card = rebuild(categoryId);
+            }
+            // 窗口内条目可能因删除少于 maxSize，此时尾页无法判断是否完整，交给数据库
+            if (end >= card) {
+                return null;
+            }
+            Set<String> members = redisTemplate.opsForZSet().reverseRange(key, start, end);
+            if (members == null) {
+                return null;
+            }
+            return members.stream().map(Long::valueOf).toList();
+        } catch (DataAccessException ex) {
+            log.warn("Read post timeline {} failed, fallback to DB: {}", key, ex.getMessage());
+            return null;
+        }
+    }
+
+    public void onPostCreated(Post post) {
+        try {
+            String member = String.valueOf(post.getId());
+            String score = String.valueOf(toScore(post.getCreateTime()));
+            String limit = String.valueOf(maxSize);
+            String now = String.valueOf(System.currentTimeMillis());
+            String window = String.valueOf(tombstoneMillis);
+            redisTemplate.execute(ADD_SCRIPT, List.of(GLOBAL_KEY, GLOBAL_KEY + RECENT_SUFFIX),
+                    score, member, limit, now, window);
+            if (post.getCategoryId() != null) {
+                String key = keyOf(post.getCategoryId());
+                redisTemplate.execute(ADD_SCRIPT, List.of(key, key + RECENT_SUFFIX), score, member, limit, now, window);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Append post {} to timeline failed: {}", post.getId(), ex.getMessage());
+        }
+    }
+
+    public void onPostRemoved(Long postId, Integer categoryId) {
+        try {
+            List<String> keys = categoryId == null
+                    ? List.of(REMOVED_KEY, GLOBAL_KEY)
+                    : List.of(REMOVED_KEY, GLOBAL_KEY, keyOf(categoryId));
+            redisTemplate.execute(REMOVE_SCRIPT, keys, String.valueOf(postId),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(tombstoneMillis));
+        } catch (DataAccessException ex) {
+            log.warn("Remove post {} from timeline failed: {}", postId, ex.getMessage());
+        }
+    }
+
+    private long rebuild(Integer categoryId) {
+        LambdaQueryWrapper<Post> wrapper = new LambdaQueryWrapper<Post>()
+                .select(Post::getId, Post::getCreateTime)
+                .eq(Post::getStatus, "normal");
+        if (categoryId != null) {
+            wrapper.eq(Post::getCategoryId, categoryId);
+        }
+        wrapper.orderByDesc(Post::getCreateTime)
+                .orderByDesc(Post::getId)
+                .last("limit " + maxSize);
+        List<Post> posts = postMapper.selectList(wrapper);
+        List<String> args = new ArrayList<>(posts.size() * 2 + 2);
+        args.add(String.valueOf(maxSize));
+        args.add(String.valueOf(ttlSeconds));
+        for (Post post : posts) {
+            args.add(String.valueOf(toScore(post.getCreateTime())));
+            args.add(String.valueOf(post.getId()));
+        }
+        String key = keyOf(categoryId);
+        Long card = redisTemplate.execute(REBUILD_SCRIPT, List.of(key, REMOVED_KEY, key + RECENT_SUFFIX), args.toArray());
+        return card == null ? 0 : card;
+    }
+
+    private String keyOf(Integer categoryId) {
+        return categoryId == null ? GLOBAL_KEY : CATEGORY_KEY_PREFIX + categoryId;
+    }
+
+    private long toScore(LocalDateTime createTime) {
+        LocalDateTime time = createTime == null ? LocalDateTime.now() : createTime;
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
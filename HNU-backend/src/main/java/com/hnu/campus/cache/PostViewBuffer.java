@@ -0,0 +1,127 @@
+package com.hnu.campus.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内浏览量缓冲。
+ * 浏览请求只在本地按帖子累加（LongAdder 分段计数，热点帖子并发自增也不会争用同一个变量），
+ * 定时把一段时间内的增量合并成一次批量脚本写入 Redis 计数器、热榜和分类热榜，请求线程不再访问 Redis。
+ * 展示给用户的浏览量 = 数据库基数 + Redis 中未落库增量 + 本地未刷出增量。
+ */
+@Slf4j
+@Component
+public class PostViewBuffer {
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    /**
+     * 已计入 Redis 计数器、但写入热榜/分类热榜失败的增量，只在 flush 中访问
+     */
+    private final Map<Long, Long> hotRetry = new HashMap<>();
+    private final Map<Long, Long> trendingRetry = new HashMap<>();
+    private final Map<Long, Integer> retryCategories = new HashMap<>();
+
+    private final PostViewCounter postViewCounter;
+    private final HotPostRanking hotPostRanking;
+    private final TrendingPostBuckets trendingPostBuckets;
+
+    public PostViewBuffer(PostViewCounter postViewCounter,
+                          HotPostRanking hotPostRanking,
+                          TrendingPostBuckets trendingPostBuckets) {
+        this.postViewCounter = postViewCounter;
+        this.hotPostRanking = hotPostRanking;
+        this.trendingPostBuckets = trendingPostBuckets;
+    }
+
+    public void record(Long postId, Integer categoryId) {
+        slots.computeIfAbsent(postId, id -> new Slot(categoryId)).views.increment();
+    }
+
+    public long localDelta(Long postId) {
+        Slot slot = slots.get(postId);
+        return slot == null ? 0 : slot.views.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${post.view-buffer.flush-interval-ms:300}")
+    public synchronized void flush() {
+        if (slots.isEmpty() && hotRetry.isEmpty() && trendingRetry.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> views = new HashMap<>();
+        Map<Long, Integer> categories = new HashMap<>();
+        slots.forEach((postId, slot) -> {
+            long count = slot.views.sumThenReset();
+            if (count > 0) {
+                views.put(postId, count);
+                categories.put(postId, slot.categoryId);
+                slot.idle = false;
+            } else if (slot.idle) {
+                // 连续两个周期没有浏览才移除；极端情况下可能丢失移除瞬间的个别计数，浏览量允许这种误差
+                slots.remove(postId, slot);
+            } else {
+                slot.idle = true;
+            }
+        });
+        if (views.isEmpty() && hotRetry.isEmpty() && trendingRetry.isEmpty()) {
+            return;
+        }
+        try {
+            postViewCounter.incrementBatch(views);
+        } catch (Exception ex) {
+            // 计数脚本是原子的，失败时整批未生效；把增量放回本地，下个周期连同热榜一起重试
+            views.forEach((postId, count) ->
+                    slots.computeIfAbsent(postId, id -> new Slot(categories.get(id))).views.add(count));
+            log.warn("Flush post view buffer failed: {}", ex.getMessage());
+            return;
+        }
+        // 计数已生效，热榜和分类热榜各自失败时只重试自己那一步，不再重复计数
+        Map<Long, Long> hotViews = mergeRetry(hotRetry, views);
+        try {
+            hotPostRanking.recordViews(hotViews);
+        } catch (Exception ex) {
+            hotRetry.putAll(hotViews);
+            log.warn("Record views into hot ranking failed, will retry {} posts: {}", hotViews.size(), ex.getMessage());
+        }
+        Map<Long, Long> trendingViews = mergeRetry(trendingRetry, views);
+        categories.forEach(retryCategories::putIfAbsent);
+        try {
+            trendingPostBuckets.recordViews(trendingViews, retryCategories);
+            retryCategories.clear();
+        } catch (Exception ex) {
+            trendingRetry.putAll(trendingViews);
+            log.warn("Record views into trending buckets failed, will retry {} posts: {}",
+                    trendingViews.size(), ex.getMessage());
+        }
+    }
+
+    /**
+     * 取出上次失败待重试的增量并与本次增量合并，重试表清空
+     */
+    private static Map<Long, Long> mergeRetry(Map<Long, Long> retry, Map<Long, Long> views) {
+        Map<Long, Long> merged = new HashMap<>(retry);
+        views.forEach((postId, count) -> merged.merge(postId, count, Long::sum));
+        retry.clear();
+        return merged;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class Slot {
+        private final Integer categoryId;
+        private final LongAdder views = new LongAdder();
+        private volatile boolean idle;
+
+        private Slot(Integer categoryId) {
+            this.categoryId = categoryId;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.hnu.campus.cache;
+
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 帖子浏览量增量计数。
+ * 每个帖子一个 `post:view:{postId}` 计数器，累加时同时把帖子记入脏集合 `post:view:dirty`（ZSET，score 为首次变脏的时间），
+ * 同步任务按脏集合分批取走增量，不再需要 KEYS 扫描。
+ */
+@Component
+public class PostViewCounter {
+    private static final String VIEW_KEY_PREFIX = "post:view:";
+    private static final String DIRTY_KEY = "post:view:dirty";
+
+    /**
+     * KEYS: 脏集合, 各帖子计数key；ARGV: 当前毫秒, 依次为 postId, 增量。返回各计数器累加后的值
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> INCREMENT_BATCH_SCRIPT = new DefaultRedisScript<>(
+            "local out = {} "
+                    + "for i = 2, #KEYS do "
+                    + "  local member = ARGV[(i - 1) * 2] "
+                    + "  out[#out + 1] = redis.call('INCRBY', KEYS[i], ARGV[(i - 1) * 2 + 1]) "
+                    + "  redis.call('ZADD', KEYS[1], 'NX', ARGV[1], member) "
+                    + "end "
+                    + "return out",
+            List.class);
+
+    /**
+     * KEYS: 脏集合；ARGV: 数量, 计数key前缀。
+     * 弹出最早变脏的一批帖子并原子地取走（GET + DEL）各自的增量，返回 [id, delta, dirtySince, ...]。
+     * 计数key由前缀拼出，只适用于单实例 Redis。
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>(
+            "local popped = redis.call('ZPOPMIN', KEYS[1], ARGV[1]) "
+                    + "local out = {} "
+                    + "for i = 1, #popped, 2 do "
+                    + "  local key = ARGV[2] .. popped[i] "
+                    + "  local v = redis.call('GET', key) "
+                    + "  if v then redis.call('DEL', key) end "
+                    + "  out[#out + 1] = popped[i] "
+                    + "  out[#out + 1] = v or '0' "
+                    + "  out[#out + 1] = popped[i + 1] "
+                    + "end "
+                    + "return out",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public PostViewCounter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 批量累加浏览增量（一次脚本调用），返回各帖子累加后尚未落库的增量
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Long> incrementBatch(Map<Long, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> postIds = new ArrayList<>(deltas.keySet());
+        List<String> keys = new ArrayList<>(postIds.size() + 1);
+        List<String> args = new ArrayList<>(postIds.size() * 2 + 1);
+        keys.add(DIRTY_KEY);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        for (Long postId : postIds) {
+            keys.add(VIEW_KEY_PREFIX + postId);
+            args.add(String.valueOf(postId));
+            args.add(String.valueOf(deltas.get(postId)));
+        }
+        List<Object> raw = redisTemplate.execute(INCREMENT_BATCH_SCRIPT, keys, args.toArray());
+        Map<Long, Long> result = new HashMap<>();
+        if (raw == null) {
+            return result;
+        }
+        for (int i = 0; i < raw.size() && i < postIds.size(); i++) {
+            Object value = raw.get(i);
+            if (value instanceof Number number) {
+                result.put(postIds.get(i), number.longValue());
+            }
+        }
+        return result;
+    }
+
+    public static String counterKey(Long postId) {
+        return VIEW_KEY_PREFIX + postId;
+    }
+
+    /**
+     * 取走最多 count 个脏帖子的增量，计数器随之清零
+     */
+    @SuppressWarnings("unchecked")
+    public List<PendingView> drain(int count) {
+        List<Object> raw = redisTemplate.execute(DRAIN_SCRIPT, List.of(DIRTY_KEY),
+                String.valueOf(count), VIEW_KEY_PREFIX);
+        if (raw == null || raw.isEmpty()) {
+            return List.of();
+        }
+        List<PendingView> result = new ArrayList<>(raw.size() / 3);
+        for (int i = 0; i + 2 < raw.size(); i += 3) {
+            try {
+                result.add(new PendingView(Long.valueOf(String.valueOf(raw.get(i))),
+                        Long.parseLong(String.valueOf(raw.get(i + 1))),
+                        (long) Double.parseDouble(String.valueOf(raw.get(i + 2)))));
+            } catch (NumberFormatException ignored) {
+                // 非法成员直接丢弃
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 落库失败时把取走的增量加回去，保留原来的变脏时间
+     */
+    public void restore(List<PendingView> views) {
+        if (views.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (PendingView view : views) {
+                if (view.delta() <= 0) {
+                    continue;
+                }
+                stringConnection.incrBy(VIEW_KEY_PREFIX + view.postId(), view.delta());
+                stringConnection.zAdd(DIRTY_KEY, view.dirtySince(), String.valueOf(view.postId()));
+            }
+            return null;
+        });
+    }
+
+    public long backlog() {
+        Long size = redisTemplate.opsForZSet().zCard(DIRTY_KEY);
+        return size == null ? 0 : size;
+    }
+
+    public record PendingView(Long postId, long delta, long dirtySince) {
+    }
+}
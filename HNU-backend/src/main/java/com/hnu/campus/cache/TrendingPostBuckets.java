@@ -0,0 +1,132 @@
+package com.hnu.campus.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按小时分桶的分类热度计数，用于滑动窗口热榜。
+ * 每小时一个 ZSET（全站一份、分类一份），查询时对窗口内的桶做 ZUNIONSTORE，合并结果短暂缓存。
+ * 桶的过期时间覆盖最大窗口，过期后自动释放内存。
+ * 取消点赞在当前桶里记负分且不删除成员，跨小时点赞又取消时合并结果才能正确抵消；查询时只取合并分数大于 0 的帖子。
+ */
+@Component
+public class TrendingPostBuckets {
+    private static final String BUCKET_PREFIX = "trending:posts:";
+    private static final String WINDOW_PREFIX = "trending:window:";
+    private static final String ALL_SCOPE = "all";
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHH");
+
+    /**
+     * KEYS: 全站桶, 各分类桶；ARGV: 过期秒数, 依次为 member, 增量, 分类桶在 KEYS 中的下标（0 表示无分类）
+     */
+    private static final DefaultRedisScript<Long> INCR_BATCH_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 3 do "
+                    + "  redis.call('ZINCRBY', KEYS[1], ARGV[i + 1], ARGV[i]) "
+                    + "  local idx = tonumber(ARGV[i + 2]) "
+                    + "  if idx > 0 then redis.call('ZINCRBY', KEYS[idx], ARGV[i + 1], ARGV[i]) end "
+                    + "end "
+                    + "for i = 1, #KEYS do redis.call('EXPIRE', KEYS[i], ARGV[1]) end "
+                    + "return #KEYS",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${post.trending.max-window-hours:168}")
+    private int maxWindowHours;
+
+    @Value("${post.trending.result-ttl-seconds:60}")
+    private long resultTtlSeconds;
+
+    public TrendingPostBuckets(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 批量累加浏览，views 为各帖子本批次的浏览次数，categories 为帖子所属分类
+     */
+    public void recordViews(Map<Long, Long> views, Map<Long, Integer> categories) {
+        if (views.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<String> keys = new ArrayList<>();
+        Map<Integer, Integer> categoryKeyIndex = new HashMap<>();
+        keys.add(bucketKey(ALL_SCOPE, now));
+        List<String> args = new ArrayList<>(views.size() * 3 + 1);
+        args.add(String.valueOf(bucketTtlSeconds()));
+        views.forEach((postId, count) -> {
+            Integer categoryId = categories.get(postId);
+            int index = 0;
+            if (categoryId != null) {
+                index = categoryKeyIndex.computeIfAbsent(categoryId, id -> {
+                    keys.add(bucketKey(scope(id), now));
+                    return keys.size();
+                });
+            }
+            args.add(String.valueOf(postId));
+            args.add(String.valueOf(count * HotPostRanking.VIEW_WEIGHT));
+            args.add(String.valueOf(index));
+        });
+        redisTemplate.execute(INCR_BATCH_SCRIPT, keys, args.toArray());
+    }
+
+    /**
+     * 当前小时的全站桶和分类桶，供点赞脚本在同一次往返中累加
+     */
+    public List<String> currentBucketKeys(Integer categoryId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (categoryId == null) {
+            return List.of(bucketKey(ALL_SCOPE, now));
+        }
+        return List.of(bucketKey(ALL_SCOPE, now), bucketKey(scope(categoryId), now));
+    }
+
+    /**
+     * 多保留一小时，保证最大窗口最早的那个桶在查询时仍然存在
+     */
+    public long bucketTtlSeconds() {
+        return (maxWindowHours + 1L) * 3600;
+    }
+
+    public int maxWindowHours() {
+        return maxWindowHours;
+    }
+
+    /**
+     * 取窗口内热度最高的帖子ID，categoryId 为空时取全站；合并分数不大于 0 的帖子不计入
+     */
+    public Set<String> topIds(Integer categoryId, int windowHours, int count) {
+        String scope = scope(categoryId);
+        LocalDateTime now = LocalDateTime.now();
+        String resultKey = WINDOW_PREFIX + scope + ":" + windowHours + "h:" + now.format(HOUR_FORMAT);
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(resultKey))) {
+            List<String> buckets = new ArrayList<>(windowHours);
+            for (int i = 0; i < windowHours; i++) {
+                buckets.add(bucketKey(scope, now.minusHours(i)));
+            }
+            redisTemplate.opsForZSet().unionAndStore(buckets.get(0), buckets.subList(1, buckets.size()), resultKey);
+            redisTemplate.expire(resultKey, Duration.ofSeconds(resultTtlSeconds));
+        }
+        return redisTemplate.opsForZSet().reverseRangeByScore(resultKey, Double.MIN_VALUE, Double.POSITIVE_INFINITY,
+                0, count);
+    }
+
+    private static String scope(Integer categoryId) {
+        return categoryId == null ? ALL_SCOPE : "category:" + categoryId;
+    }
+
+    private static String bucketKey(String scope, LocalDateTime time) {
+        return BUCKET_PREFIX + scope + ":" + time.format(HOUR_FORMAT);
+    }
+}
@@ -0,0 +1,257 @@
+package com.hnu.campus.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hnu.campus.entity.CommentLike;
+import com.hnu.campus.entity.PostLike;
+import com.hnu.campus.mapper.CommentLikeMapper;
+import com.hnu.campus.mapper.PostLikeMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 按用户索引的点赞集合：每个用户一个帖子ID集合和一个评论ID集合（Redis SET，ID 较少时以紧凑的 intset 编码存储），
+ * 列表页一次脚本调用即可判断整页帖子/评论是否已被当前用户点赞。
+ * 集合中的成员 0 为"已从数据库加载"标记；点赞/取消点赞时无论是否已加载都直接增删成员，并递增该用户的索引版本，
+ * 未加载时首次查询从数据库加载，并跳过待落库哈希中已有新状态的帖子。
+ * 加载前记下索引版本（帖子还记下点赞落库批次ID），写入时任一变化说明读库期间有切换或落库，放弃这次加载，避免写回旧状态。
+ * 集合的过期时间从创建或加载时算起，读取和切换都不续期，与数据库不一致的状态最多保留一个周期。
+ */
+@Slf4j
+@Component
+public class UserLikeIndex {
+    private static final String POSTS_PREFIX = "user:liked:posts:";
+    private static final String COMMENTS_PREFIX = "user:liked:comments:";
+    private static final String VERSION_SUFFIX = ":version";
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    /**
+     * 切换后更新用户点赞集合，供本类和帖子点赞脚本共用。
+     * 需要事先定义 indexKey, versionKey, indexId, liked(1/0), indexTtl；集合已有过期时间时不续期
+     */
+    public static final String RECORD_LUA =
+            "if liked == 1 then redis.call('SADD', indexKey, indexId) else redis.call('SREM', indexKey, indexId) end "
+                    + "if redis.call('TTL', indexKey) < 0 then redis.call('EXPIRE', indexKey, indexTtl) end "
+                    + "redis.call('INCR', versionKey) "
+                    + "redis.call('EXPIRE', versionKey, indexTtl) ";
+
+    /**
+     * KEYS: 用户点赞集合；ARGV: id...。未加载返回空列表，否则返回 {1, 每个 id 是否已点赞...}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> LOOKUP_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SISMEMBER', KEYS[1], '0') == 0 then return {} end "
+                    + "local result = {1} "
+                    + "for i = 1, #ARGV do result[i + 1] = redis.call('SISMEMBER', KEYS[1], ARGV[i]) end "
+                    + "return result",
+            List.class);
+
+    /**
+     * KEYS: 用户点赞集合, 索引版本, [点赞落库批次ID, 待落库哈希...]；
+     * ARGV: 过期秒数, userId, 是否最后一批, 读库前的索引版本, 读库前的批次ID, id...。
+     * 版本或批次ID与读库前不同时不写入并返回 0；待落库哈希中已有该用户新状态的 id 以切换脚本写入的成员为准
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[4] then return 0 end "
+                    + "if #KEYS > 2 and (redis.call('GET', KEYS[3]) or '') ~= ARGV[5] then return 0 end "
+                    + "for i = 6, #ARGV do "
+                    + "  local pending = false "
+                    + "  for k = 4, #KEYS do "
+                    + "    if redis.call('HEXISTS', KEYS[k], ARGV[i] .. ':' .. ARGV[2]) == 1 then pending = true end "
+                    + "  end "
+                    + "  if not pending then redis.call('SADD', KEYS[1], ARGV[i]) end "
+                    + "end "
+                    + "if ARGV[3] == '1' then redis.call('SADD', KEYS[1], '0') end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * KEYS: 用户点赞集合, 索引版本；ARGV: id, 1 点赞 / 0 取消, 过期秒数
+     */
+    private static final DefaultRedisScript<Long> APPLY_SCRIPT = new DefaultRedisScript<>(
+            "local indexKey, versionKey, indexId, indexTtl = KEYS[1], KEYS[2], ARGV[1], ARGV[3] "
+                    + "local liked = tonumber(ARGV[2]) "
+                    + RECORD_LUA
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PostLikeMapper postLikeMapper;
+    private final CommentLikeMapper commentLikeMapper;
+
+    @Value("${post.like.user-index-ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    public UserLikeIndex(StringRedisTemplate redisTemplate,
+                         PostLikeMapper postLikeMapper,
+                         CommentLikeMapper commentLikeMapper) {
+        this.redisTemplate = redisTemplate;
+        this.postLikeMapper = postLikeMapper;
+        this.commentLikeMapper = commentLikeMapper;
+    }
+
+    public static String postsKey(Long userId) {
+        return POSTS_PREFIX + userId;
+    }
+
+    public static String versionKey(String indexKey) {
+        return indexKey + VERSION_SUFFIX;
+    }
+
+    public long ttlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * 给定帖子中当前用户点赞过的帖子ID
+     */
+    public Set<Long> likedPostIds(Long userId, Collection<Long> postIds) {
+        if (userId == null || postIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String key = postsKey(userId);
+        try {
+            Set<Long> liked = lookup(key, postIds);
+            if (liked == null && load(key, userId,
+                    List.of(PostLikeEngine.BATCH_ID_KEY, PostLikeEngine.PENDING_KEY, PostLikeEngine.PROCESSING_KEY),
+                    () -> postLikeMapper.selectObjs(new LambdaQueryWrapper<PostLike>()
+                            .select(PostLike::getPostId)
+                            .eq(PostLike::getUserId, userId)))) {
+                liked = lookup(key, postIds);
+            }
+            if (liked != null) {
+                return liked;
+            }
+        } catch (Exception ex) {
+            log.warn("Read user liked posts failed: {}", ex.getMessage());
+        }
+        return toIdSet(postLikeMapper.selectObjs(new LambdaQueryWrapper<PostLike>()
+                .select(PostLike::getPostId)
+                .eq(PostLike::getUserId, userId)
+                .in(PostLike::getPostId, postIds)));
+    }
+
+    /**
+     * 给定评论中当前用户点赞过的评论ID
+     */
+    public Set<Long> likedCommentIds(Long userId, Collection<Long> commentIds) {
+        if (userId == null || commentIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String key = COMMENTS_PREFIX + userId;
+        try {
+            Set<Long> liked = lookup(key, commentIds);
+            if (liked == null && load(key, userId, List.of(),
+                    () -> commentLikeMapper.selectObjs(new LambdaQueryWrapper<CommentLike>()
+                            .select(CommentLike::getCommentId)
+                            .eq(CommentLike::getUserId, userId)))) {
+                liked = lookup(key, commentIds);
+            }
+            if (liked != null) {
+                return liked;
+            }
+        } catch (Exception ex) {
+            log.warn("Read user liked comments failed: {}", ex.getMessage());
+        }
+        return toIdSet(commentLikeMapper.selectObjs(new LambdaQueryWrapper<CommentLike>()
+                .select(CommentLike::getCommentId)
+                .eq(CommentLike::getUserId, userId)
+                .in(CommentLike::getCommentId, commentIds)));
+    }
+
+    /**
+     * 数据库中切换点赞后同步用户索引；Redis 模式的帖子点赞由切换脚本直接维护
+     */
+    public void recordPostLike(Long userId, Long postId, boolean liked) {
+        apply(postsKey(userId), postId, liked);
+    }
+
+    public void recordCommentLike(Long userId, Long commentId, boolean liked) {
+        apply(COMMENTS_PREFIX + userId, commentId, liked);
+    }
+
+    private void apply(String key, Long id, boolean liked) {
+        try {
+            redisTemplate.execute(APPLY_SCRIPT, List.of(key, versionKey(key)),
+                    String.valueOf(id), liked ? "1" : "0", String.valueOf(ttlSeconds));
+        } catch (Exception ex) {
+            // 集合不续期，最多在过期前与数据库不一致
+            log.warn("Update user like index failed: {}", ex.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Long> lookup(String key, Collection<Long> ids) {
+        List<Long> ordered = new ArrayList<>(ids);
+        List<String> args = new ArrayList<>(ordered.size());
+        for (Long id : ordered) {
+            args.add(String.valueOf(id));
+        }
+        List<Object> raw = redisTemplate.execute(LOOKUP_SCRIPT, List.of(key), args.toArray());
+        if (raw == null || raw.isEmpty()) {
+            return null;
+        }
+        Set<Long> liked = new HashSet<>();
+        for (int i = 1; i < raw.size() && i <= ordered.size(); i++) {
+            if (raw.get(i) instanceof Number flag && flag.longValue() == 1) {
+                liked.add(ordered.get(i - 1));
+            }
+        }
+        return liked;
+    }
+
+    /**
+     * 从数据库加载用户的全部点赞；syncKeys 为点赞落库批次ID和待落库哈希，评论为空。
+     * 返回 false 表示读库期间有切换或落库，本次未完成加载，调用方回退数据库查询
+     */
+    private boolean load(String key, Long userId, List<String> syncKeys, Supplier<List<Object>> loader) {
+        List<String> keys = new ArrayList<>(2 + syncKeys.size());
+        keys.add(key);
+        keys.add(versionKey(key));
+        keys.addAll(syncKeys);
+        List<String> guards = redisTemplate.opsForValue().multiGet(keys.subList(1, syncKeys.isEmpty() ? 2 : 3));
+        String version = guards == null || guards.get(0) == null ? "" : guards.get(0);
+        String batchId = guards == null || guards.size() < 2 || guards.get(1) == null ? "" : guards.get(1);
+        List<Object> ids = loader.get();
+        int from = 0;
+        do {
+            int to = Math.min(from + LOAD_BATCH_SIZE, ids.size());
+            List<String> args = new ArrayList<>(to - from + 5);
+            args.add(String.valueOf(ttlSeconds));
+            args.add(String.valueOf(userId));
+            args.add(to == ids.size() ? "1" : "0");
+            args.add(version);
+            args.add(batchId);
+            for (Object id : ids.subList(from, to)) {
+                args.add(String.valueOf(id));
+            }
+            Long loaded = redisTemplate.execute(LOAD_SCRIPT, keys, args.toArray());
+            if (loaded == null || loaded == 0) {
+                return false;
+            }
+            from = to;
+        } while (from < ids.size());
+        return true;
+    }
+
+    private static Set<Long> toIdSet(List<Object> ids) {
+        Set<Long> liked = new HashSet<>();
+        for (Object id : ids) {
+            if (id instanceof Number number) {
+                liked.add(number.longValue());
+            }
+        }
+        return liked;
+    }
+}
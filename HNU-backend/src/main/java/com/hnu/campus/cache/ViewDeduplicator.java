@@ -0,0 +1,25 @@
+package com.hnu.campus.cache;
+
+import java.util.List;
+
+/**
+ * 登录用户浏览去重策略，PostServiceImpl#getPostDetail 用它判断本次浏览是否计数。
+ * 通过 post.view-dedup.mode 选择实现：key（每人每帖一个 key）或 bloom（按帖子轮转的布隆过滤器）。
+ * 实现只负责给出去重用的 key 和参数，判断在 {@link PostStatsScripts} 的浏览脚本中与读取计数同一次往返完成。
+ */
+public interface ViewDeduplicator {
+    /**
+     * 生成本次浏览的去重参数
+     */
+    Spec spec(Long postId, Long userId);
+
+    /**
+     * @param mode       none / key / bloom
+     * @param keys       key 模式为去重 key；bloom 模式为当前窗口、上一窗口位图
+     * @param ttlSeconds 写入的 key 的过期时间
+     * @param offsets    bloom 模式下的哈希位
+     */
+    record Spec(String mode, List<String> keys, long ttlSeconds, long[] offsets) {
+        public static final Spec NONE = new Spec("none", List.of(), 0, new long[0]);
+    }
+}
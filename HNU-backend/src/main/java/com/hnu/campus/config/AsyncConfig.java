@@ -0,0 +1,93 @@
+package com.hnu.campus.config;
+
+import com.hnu.campus.security.CurrentUserContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+    /**
+     * 帖子详情并发查询线程池。有界队列，队列满时由调用线程自己执行，退化为串行而不是报错。
+     * 每个任务都会占用一个数据库连接，线程数应小于连接池大小。
+     */
+    @Bean
+    public ThreadPoolTaskExecutor postDetailExecutor(@Value("${post.detail.executor.core-size:8}") int coreSize,
+                                                     @Value("${post.detail.executor.max-size:16}") int maxSize,
+                                                     @Value("${post.detail.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("post-detail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(currentUserTaskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 密码哈希线程池。BCrypt 是纯 CPU 计算，线程数默认等于核数；队列满时直接拒绝，
+     * 由 {@link com.hnu.campus.security.PasswordHasher} 返回 503，登录高峰不会占满请求线程拖垮读接口。
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor(@Value("${auth.password-hash.threads:0}") int threads,
+                                                       @Value("${auth.password-hash.queue-capacity:64}") int queueCapacity) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 管理员异步批量任务线程池。任务逐块执行 UPDATE，线程数很小以免占满数据库连接；队列满时拒绝新任务
+     */
+    @Bean
+    public ThreadPoolTaskExecutor adminBatchExecutor(@Value("${admin.batch.executor.threads:2}") int threads,
+                                                     @Value("${admin.batch.executor.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("admin-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 把提交线程的 CurrentUserContext 带到工作线程，执行完后恢复工作线程原来的上下文
+     */
+    static TaskDecorator currentUserTaskDecorator() {
+        return runnable -> {
+            Long userId = CurrentUserContext.getUserId();
+            String role = CurrentUserContext.getRole();
+            return () -> {
+                Long previousUserId = CurrentUserContext.getUserId();
+                String previousRole = CurrentUserContext.getRole();
+                CurrentUserContext.setUser(userId, role);
+                try {
+                    runnable.run();
+                } finally {
+                    if (previousUserId == null && previousRole == null) {
+                        CurrentUserContext.clear();
+                    } else {
+                        CurrentUserContext.setUser(previousUserId, previousRole);
+                    }
+                }
+            };
+        };
+    }
+}
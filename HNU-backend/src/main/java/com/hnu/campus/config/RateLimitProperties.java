@@ -0,0 +1,39 @@
+package com.hnu.campus.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 接口限流配置，按顺序匹配，请求只受第一条匹配规则限制（phone 规则与其余规则分开匹配）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        /**
+         * 规则名，同名规则共用一个令牌桶
+         */
+        private String name;
+        private String method;
+        private List<String> patterns = new ArrayList<>();
+        /**
+         * user：登录用户按用户ID、匿名按IP；ip：始终按IP；
+         * phone：按请求体中的手机号加IP，由接口绑定参数后调用 RateLimitInterceptor#checkPhone，拦截器匹配时跳过
+         */
+        private String key = "user";
+        /**
+         * 桶容量，即允许的突发请求数
+         */
+        private int capacity;
+        private double refillPerSecond;
+    }
+}
@@ -0,0 +1,23 @@
+package com.hnu.campus.config;
+
+import com.hnu.campus.security.AuthStateCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisConfig {
+    /**
+     * Redis 订阅容器，这里订阅鉴权状态失效频道；内存搜索索引启用时自行注册同步频道
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       AuthStateCache authStateCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(authStateCache, new ChannelTopic(AuthStateCache.CHANNEL));
+        return container;
+    }
+}
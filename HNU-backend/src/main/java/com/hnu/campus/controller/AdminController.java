@@ -1,6 +1,11 @@
 package com.hnu.campus.controller;
 
 import com.hnu.campus.dto.admin.AuthReviewDTO;
+import com.hnu.campus.dto.admin.BatchAuthReviewDTO;
+import com.hnu.campus.dto.admin.BatchDeleteDTO;
+import com.hnu.campus.dto.admin.BatchJobDTO;
+import com.hnu.campus.dto.admin.BatchUserKickDTO;
+import com.hnu.campus.dto.admin.BatchUserMuteDTO;
 import com.hnu.campus.dto.admin.UserMuteDTO;
 import com.hnu.campus.dto.common.ApiResponse;
 import com.hnu.campus.dto.user.UserInfoDTO;
@@ -94,4 +99,49 @@ public class AdminController {
         adminService.deleteComment(adminId, id);
         return ApiResponse.success("Delete success");
     }
+
+    @PostMapping("/batch/auth/review")
+    @Operation(summary = "Batch review auth",
+            description = "Approve or reject a list of users, or every pending user when no list is given")
+    public ApiResponse<BatchJobDTO> batchReviewAuth(@Valid @RequestBody BatchAuthReviewDTO reviewDTO) {
+        Long adminId = CurrentUserContext.getUserId();
+        return ApiResponse.success(adminService.batchReviewAuth(adminId, reviewDTO));
+    }
+
+    @PostMapping("/batch/users/mute")
+    @Operation(summary = "Batch mute users", description = "Mute or unmute a list of users, optionally kicking them")
+    public ApiResponse<BatchJobDTO> batchMuteUsers(@Valid @RequestBody BatchUserMuteDTO muteDTO) {
+        Long adminId = CurrentUserContext.getUserId();
+        return ApiResponse.success(adminService.batchMuteUsers(adminId, muteDTO));
+    }
+
+    @PostMapping("/batch/users/kick")
+    @Operation(summary = "Batch kick users", description = "Force logout and revoke tokens for a list of users")
+    public ApiResponse<BatchJobDTO> batchKickUsers(@Valid @RequestBody BatchUserKickDTO kickDTO) {
+        Long adminId = CurrentUserContext.getUserId();
+        return ApiResponse.success(adminService.batchKickUsers(adminId, kickDTO));
+    }
+
+    @PostMapping("/batch/posts/delete")
+    @Operation(summary = "Batch delete posts", description = "Force delete posts by id list or by author")
+    public ApiResponse<BatchJobDTO> batchDeletePosts(@Valid @RequestBody BatchDeleteDTO deleteDTO) {
+        Long adminId = CurrentUserContext.getUserId();
+        return ApiResponse.success(adminService.batchDeletePosts(adminId, deleteDTO));
+    }
+
+    @PostMapping("/batch/comments/delete")
+    @Operation(summary = "Batch delete comments", description = "Delete comments by id list or by author")
+    public ApiResponse<BatchJobDTO> batchDeleteComments(@Valid @RequestBody BatchDeleteDTO deleteDTO) {
+        Long adminId = CurrentUserContext.getUserId();
+        return ApiResponse.success(adminService.batchDeleteComments(adminId, deleteDTO));
+    }
+
+    @GetMapping("/batch/jobs/{jobId}")
+    @Operation(summary = "Batch job progress", description = "Poll the progress of an asynchronous batch job")
+    public ApiResponse<BatchJobDTO> getBatchJob(
+            @Parameter(description = "Job ID", required = true)
+            @PathVariable String jobId) {
+        Long adminId = CurrentUserContext.getUserId();
+        return ApiResponse.success(adminService.getBatchJob(adminId, jobId));
+    }
 }
@@ -4,7 +4,9 @@ import com.hnu.campus.dto.auth.LoginDTO;
 import com.hnu.campus.dto.auth.LoginResponseDTO;
 import com.hnu.campus.dto.auth.RegisterDTO;
 import com.hnu.campus.dto.common.ApiResponse;
+import com.hnu.campus.security.RateLimitInterceptor;
 import com.hnu.campus.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,24 +26,29 @@ import java.time.Duration;
 @Tag(name = "Auth", description = "Register/login/refresh/verify-code endpoints")
 public class AuthController {
     private final AuthService authService;
+    private final RateLimitInterceptor rateLimitInterceptor;
 
     @Value("${jwt.refresh-expire-seconds:2592000}")
     private long refreshExpireSeconds;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, RateLimitInterceptor rateLimitInterceptor) {
         this.authService = authService;
+        this.rateLimitInterceptor = rateLimitInterceptor;
     }
 
     @PostMapping("/register")
     @Operation(summary = "Register", description = "Register a new user")
-    public ApiResponse<Long> register(@Valid @RequestBody RegisterDTO registerDTO) {
+    public ApiResponse<Long> register(@Valid @RequestBody RegisterDTO registerDTO, HttpServletRequest request) {
+        rateLimitInterceptor.checkPhone(request, registerDTO.getPhone());
         Long userId = authService.register(registerDTO);
         return ApiResponse.success("Register success", userId);
     }
 
     @PostMapping("/login")
     @Operation(summary = "Login", description = "Login and return access token")
-    public ApiResponse<LoginResponseDTO> login(@Valid @RequestBody LoginDTO loginDTO, HttpServletResponse response) {
+    public ApiResponse<LoginResponseDTO> login(@Valid @RequestBody LoginDTO loginDTO, HttpServletRequest request,
+                                               HttpServletResponse response) {
+        rateLimitInterceptor.checkPhone(request, loginDTO.getPhone());
         LoginResponseDTO loginResponse = authService.login(loginDTO);
         writeRefreshCookie(response, loginResponse.getRefreshToken());
         loginResponse.setRefreshToken(null);
@@ -1,7 +1,9 @@
 package com.hnu.campus.controller;
 
 import com.hnu.campus.dto.comment.CommentCreateDTO;
+import com.hnu.campus.dto.comment.CommentDTO;
 import com.hnu.campus.dto.common.ApiResponse;
+import com.hnu.campus.dto.common.CursorPageDTO;
 import com.hnu.campus.security.CurrentUserContext;
 import com.hnu.campus.service.CommentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,7 +18,7 @@ import org.springframework.web.bind.annotation.*;
  */
 @RestController
 @RequestMapping("/api/v1/comments")
-@Tag(name = "评论管理", description = "评论发布、点赞等接口")
+@Tag(name = "评论管理", description = "评论发布、分页浏览、点赞等接口")
 @SecurityRequirement(name = "Bearer Authentication")
 public class CommentController {
     private final CommentService commentService;
@@ -33,6 +35,32 @@ public class CommentController {
         return ApiResponse.success("评论成功", commentId);
     }
 
+    @GetMapping
+    @Operation(summary = "分页获取根评论", description = "按发布时间正序做游标分页，每条根评论附带回复数和最早的几条回复预览，首页不传cursor")
+    public ApiResponse<CursorPageDTO<CommentDTO>> getRootComments(
+            @Parameter(description = "帖子ID", example = "1", required = true)
+            @RequestParam Long postId,
+            @Parameter(description = "上一页返回的nextCursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量，最大50", example = "20")
+            @RequestParam(defaultValue = "20") Integer size) {
+        Long userId = CurrentUserContext.getUserId();
+        return ApiResponse.success(commentService.getRootComments(postId, cursor, size, userId));
+    }
+
+    @GetMapping("/{id}/replies")
+    @Operation(summary = "展开评论回复", description = "分页获取某条评论的直接回复，按发布时间正序")
+    public ApiResponse<CursorPageDTO<CommentDTO>> getReplies(
+            @Parameter(description = "评论ID", example = "1", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "上一页返回的nextCursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量，最大50", example = "20")
+            @RequestParam(defaultValue = "20") Integer size) {
+        Long userId = CurrentUserContext.getUserId();
+        return ApiResponse.success(commentService.getReplies(id, cursor, size, userId));
+    }
+
     @PostMapping("/{id}/like")
     @Operation(summary = "点赞/取消点赞评论", description = "点赞或取消点赞评论")
     public ApiResponse<Boolean> toggleLike(
@@ -1,6 +1,7 @@
 package com.hnu.campus.controller;
 
 import com.hnu.campus.dto.common.ApiResponse;
+import com.hnu.campus.dto.common.CursorPageDTO;
 import com.hnu.campus.dto.post.PostCreateDTO;
 import com.hnu.campus.dto.post.PostDetailDTO;
 import com.hnu.campus.dto.post.PostListDTO;
@@ -60,8 +61,20 @@ public class PostController {
         return ApiResponse.success(postService.getPostList(categoryId, page, size));
     }
 
+    @GetMapping(params = "cursor")
+    @Operation(summary = "游标方式获取帖子列表", description = "按(创建时间, ID)做keyset分页，首页传空cursor，之后传上一页返回的nextCursor，不执行COUNT查询")
+    public ApiResponse<CursorPageDTO<PostListDTO>> getPostListByCursor(
+            @Parameter(description = "分类ID", example = "1")
+            @RequestParam(required = false) Integer categoryId,
+            @Parameter(description = "分页游标，首页传空字符串")
+            @RequestParam(defaultValue = "") String cursor,
+            @Parameter(description = "每页数量，最大50", example = "10")
+            @RequestParam(defaultValue = "10") Integer size) {
+        return ApiResponse.success(postService.getPostListByCursor(categoryId, cursor, size));
+    }
+
     @GetMapping("/search")
-    @Operation(summary = "搜索帖子", description = "支持模糊搜索（SQL LIKE实现），可预留ES接口")
+    @Operation(summary = "搜索帖子", description = "默认基于search_vector全文检索（中文二元分词，按ts_rank排序），单字关键词走pg_trgm模糊匹配")
     public ApiResponse<List<PostListDTO>> searchPosts(
             @Parameter(description = "搜索关键词", example = "自行车", required = true)
             @RequestParam String keyword,
@@ -75,9 +88,14 @@ public class PostController {
     }
 
     @GetMapping("/hot")
-    @Operation(summary = "获取热搜帖子", description = "返回热度前10的帖子，使用Redis缓存")
-    public ApiResponse<List<PostListDTO>> getHotPosts() {
-        return ApiResponse.success(postService.getHotPosts());
+    @Operation(summary = "获取热搜帖子", description = "返回热度前10的帖子，使用Redis缓存；传入分类或窗口时返回该分类最近若干小时的热榜")
+    public ApiResponse<List<PostListDTO>> getHotPosts(
+            @Parameter(description = "分类ID，不传则统计全站") @RequestParam(required = false) Integer categoryId,
+            @Parameter(description = "统计窗口（小时），默认24") @RequestParam(required = false) Integer window) {
+        if (categoryId == null && window == null) {
+            return ApiResponse.success(postService.getHotPosts());
+        }
+        return ApiResponse.success(postService.getTrendingPosts(categoryId, window));
     }
 
     @GetMapping("/{id}")
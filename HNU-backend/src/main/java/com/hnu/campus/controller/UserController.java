@@ -1,6 +1,7 @@
 package com.hnu.campus.controller;
 
 import com.hnu.campus.dto.common.ApiResponse;
+import com.hnu.campus.dto.common.CursorPageDTO;
 import com.hnu.campus.dto.post.PostListDTO;
 import com.hnu.campus.dto.user.UserInfoDTO;
 import com.hnu.campus.dto.user.PasswordUpdateDTO;
@@ -63,4 +64,15 @@ public class UserController {
         Long userId = CurrentUserContext.getUserId();
         return ApiResponse.success(userService.getUserPosts(userId, page, size));
     }
+
+    @GetMapping(value = "/me/posts", params = "cursor")
+    @Operation(summary = "游标方式查看我的发帖", description = "按(创建时间, ID)做keyset分页，首页传空cursor")
+    @Parameter(name = "cursor", description = "分页游标，首页传空字符串")
+    @Parameter(name = "size", description = "每页数量，最大50", example = "10")
+    public ApiResponse<CursorPageDTO<PostListDTO>> getMyPostsByCursor(
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") Integer size) {
+        Long userId = CurrentUserContext.getUserId();
+        return ApiResponse.success(userService.getUserPostsByCursor(userId, cursor, size));
+    }
 }
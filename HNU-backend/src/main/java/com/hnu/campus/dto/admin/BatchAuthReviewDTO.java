@@ -0,0 +1,28 @@
+package com.hnu.campus.dto.admin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量审核用户注册DTO
+ */
+@Data
+@Schema(description = "批量审核用户注册请求，userIds 为空时审核全部待审核用户")
+public class BatchAuthReviewDTO {
+    @Size(max = 10000, message = "单次最多审核10000个用户")
+    @Schema(description = "用户ID列表；不传时按筛选条件审核全部待审核用户", example = "[1, 2, 3]")
+    private List<Long> userIds;
+
+    @Schema(description = "筛选条件：只审核在此时间之前注册的待审核用户，仅在不传 userIds 时生效", example = "2024-09-01T00:00:00")
+    private LocalDateTime createdBefore;
+
+    @NotNull(message = "审核结果不能为空")
+    @Schema(description = "审核结果：approved(通过)/rejected(拒绝)", example = "approved", requiredMode = RequiredMode.REQUIRED)
+    private String authStatus;
+}
@@ -0,0 +1,21 @@
+package com.hnu.campus.dto.admin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量删除帖子/评论DTO，ids 与 userId 二选一
+ */
+@Data
+@Schema(description = "批量删除请求，ids 与 userId 二选一")
+public class BatchDeleteDTO {
+    @Size(max = 10000, message = "单次最多删除10000条")
+    @Schema(description = "帖子或评论ID列表", example = "[1, 2, 3]")
+    private List<Long> ids;
+
+    @Schema(description = "筛选条件：删除该用户发布的全部帖子或评论", example = "1")
+    private Long userId;
+}
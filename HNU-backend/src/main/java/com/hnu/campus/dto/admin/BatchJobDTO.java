@@ -0,0 +1,32 @@
+package com.hnu.campus.dto.admin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 批量操作结果/进度DTO
+ */
+@Data
+@Schema(description = "批量操作结果；数量较多时异步执行，通过 jobId 查询进度")
+public class BatchJobDTO {
+    @Schema(description = "异步任务ID，同步完成时为空", example = "3f1c0a6e9b2d4f7a8c5e1d2b3a4f5e6d")
+    private String jobId;
+
+    @Schema(description = "操作类型", example = "auth-review")
+    private String type;
+
+    @Schema(description = "状态：running(执行中)/completed(已完成)/failed(失败)", example = "completed")
+    private String status;
+
+    @Schema(description = "待处理总数", example = "3000")
+    private Long total;
+
+    @Schema(description = "已处理数", example = "3000")
+    private Long processed;
+
+    @Schema(description = "实际发生变更的数量", example = "2987")
+    private Long affected;
+
+    @Schema(description = "失败原因")
+    private String error;
+}
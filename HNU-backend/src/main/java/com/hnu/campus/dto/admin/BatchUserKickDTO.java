@@ -0,0 +1,21 @@
+package com.hnu.campus.dto.admin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量踢下线DTO
+ */
+@Data
+@Schema(description = "批量踢下线请求")
+public class BatchUserKickDTO {
+    @NotEmpty(message = "用户ID列表不能为空")
+    @Size(max = 10000, message = "单次最多处理10000个用户")
+    @Schema(description = "用户ID列表", example = "[1, 2, 3]", requiredMode = RequiredMode.REQUIRED)
+    private List<Long> userIds;
+}
@@ -0,0 +1,29 @@
+package com.hnu.campus.dto.admin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量禁言DTO
+ */
+@Data
+@Schema(description = "批量禁言请求")
+public class BatchUserMuteDTO {
+    @NotEmpty(message = "用户ID列表不能为空")
+    @Size(max = 10000, message = "单次最多处理10000个用户")
+    @Schema(description = "用户ID列表", example = "[1, 2, 3]", requiredMode = RequiredMode.REQUIRED)
+    private List<Long> userIds;
+
+    @NotNull(message = "禁言状态不能为空")
+    @Schema(description = "是否禁言：true(禁言)/false(解禁)", example = "true", requiredMode = RequiredMode.REQUIRED)
+    private Boolean isMuted;
+
+    @Schema(description = "禁言的同时踢下线", example = "false")
+    private Boolean kick;
+}
@@ -39,7 +39,10 @@ public class CommentDTO {
     @Schema(description = "创建时间")
     private LocalDateTime createTime;
 
-    @Schema(description = "子评论列表")
+    @Schema(description = "直接回复数")
+    private Integer replyCount;
+
+    @Schema(description = "回复预览，完整回复通过回复分页接口展开")
     private List<CommentDTO> replies;
 }
 
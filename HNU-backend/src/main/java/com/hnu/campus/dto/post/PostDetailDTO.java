@@ -44,6 +44,9 @@ public class PostDetailDTO {
     @Schema(description = "点赞数")
     private Integer likeCount;
 
+    @Schema(description = "评论数")
+    private Integer commentCount;
+
     @Schema(description = "热度值")
     private BigDecimal hotScore;
 
@@ -53,7 +56,13 @@ public class PostDetailDTO {
     @Schema(description = "创建时间")
     private LocalDateTime createTime;
 
-    @Schema(description = "评论列表")
+    @Schema(description = "第一页根评论，每条附带回复预览")
     private List<CommentDTO> comments;
+
+    @Schema(description = "下一页根评论游标，为空表示没有更多评论")
+    private String commentNextCursor;
+
+    @Schema(description = "是否还有更多根评论")
+    private Boolean hasMoreComments;
 }
 
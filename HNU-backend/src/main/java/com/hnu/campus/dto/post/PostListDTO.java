@@ -39,6 +39,12 @@ public class PostListDTO {
     @Schema(description = "点赞数")
     private Integer likeCount;
 
+    @Schema(description = "评论数")
+    private Integer commentCount;
+
+    @Schema(description = "当前用户是否已点赞")
+    private Boolean isLiked;
+
     @Schema(description = "热度值")
     private BigDecimal hotScore;
 
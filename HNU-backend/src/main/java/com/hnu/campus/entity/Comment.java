@@ -47,6 +47,11 @@ public class Comment {
      */
     private Integer likeCount;
 
+    /**
+     * 直接回复数（含已删除后显示为占位的回复），由 CommentCountBuffer 异步维护
+     */
+    private Integer replyCount;
+
     /**
      * 状态：normal(正常)/deleted(删除)
      */
@@ -1,6 +1,8 @@
 package com.hnu.campus.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.AllArgsConstructor;
@@ -58,6 +60,11 @@ public class Post {
      */
     private Integer likeCount;
 
+    /**
+     * 评论数（正常状态的评论和回复），由 CommentCountBuffer 异步维护
+     */
+    private Integer commentCount;
+
     /**
      * 热度值，用于热搜排序
      */
@@ -69,8 +76,9 @@ public class Post {
     private String status;
 
     /**
-     * 全文检索向量（PostgreSQL TSVECTOR类型）
+     * 全文检索向量（PostgreSQL TSVECTOR类型），只通过 PostMapper#updateSearchVector 维护
      */
+    @TableField(select = false, insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
     private String searchVector;
 
     /**
@@ -0,0 +1,17 @@
+package com.hnu.campus.exception;
+
+/**
+ * 服务端资源饱和，客户端应在 retryAfterSeconds 秒后重试
+ */
+public class ServiceBusyException extends BusinessException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(503, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
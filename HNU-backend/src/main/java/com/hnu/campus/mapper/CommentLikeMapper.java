@@ -3,10 +3,55 @@ package com.hnu.campus.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hnu.campus.entity.CommentLike;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Map;
 
 /**
  * 评论点赞Mapper接口
  */
 @Mapper
 public interface CommentLikeMapper extends BaseMapper<CommentLike> {
+    /**
+     * 一条语句切换评论点赞：插入或删除点赞记录并增减 like_count，重复点赞不再依赖唯一键异常。
+     * 返回 liked（1 点赞 / 0 取消 / 2 未改变 / -1 评论不存在）和 post_id；并发请求已插入点赞时插入冲突、删除也找不到行，返回 2
+     */
+    @Select("WITH target AS (SELECT id, post_id FROM comments WHERE id = #{commentId} AND status = 'normal' FOR UPDATE), "
+            + "ins AS (INSERT INTO comment_likes (comment_id, user_id, create_time) "
+            + "SELECT id, #{userId}, NOW() FROM target ON CONFLICT (comment_id, user_id) DO NOTHING RETURNING comment_id), "
+            + "del AS (DELETE FROM comment_likes WHERE comment_id = #{commentId} AND user_id = #{userId} "
+            + "AND EXISTS (SELECT 1 FROM target) AND NOT EXISTS (SELECT 1 FROM ins) RETURNING comment_id), "
+            + "upd AS (UPDATE comments c SET like_count = GREATEST(c.like_count + d.delta, 0), update_time = NOW() "
+            + "FROM (SELECT (SELECT COUNT(*) FROM ins) - (SELECT COUNT(*) FROM del) AS delta) d "
+            + "WHERE c.id = #{commentId} AND EXISTS (SELECT 1 FROM target) RETURNING c.id) "
+            + "SELECT CASE WHEN NOT EXISTS (SELECT 1 FROM target) THEN -1 "
+            + "WHEN EXISTS (SELECT 1 FROM ins) THEN 1 "
+            + "WHEN EXISTS (SELECT 1 FROM del) THEN 0 "
+            + "ELSE 2 END AS liked, (SELECT post_id FROM target) AS post_id")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    Map<String, Object> toggle(@Param("commentId") Long commentId, @Param("userId") Long userId);
+
+    /**
+     * 热点评论的点赞切换：不更新 comments 行，把 ±1 累加到 like_count_shards 的一个分片，由定时任务合并回原行
+     */
+    @Select("WITH target AS (SELECT id, post_id FROM comments WHERE id = #{commentId} AND status = 'normal'), "
+            + "ins AS (INSERT INTO comment_likes (comment_id, user_id, create_time) "
+            + "SELECT id, #{userId}, NOW() FROM target ON CONFLICT (comment_id, user_id) DO NOTHING RETURNING comment_id), "
+            + "del AS (DELETE FROM comment_likes WHERE comment_id = #{commentId} AND user_id = #{userId} "
+            + "AND EXISTS (SELECT 1 FROM target) AND NOT EXISTS (SELECT 1 FROM ins) RETURNING comment_id), "
+            + "shard AS (INSERT INTO like_count_shards (target_type, target_id, shard, delta) "
+            + "SELECT 'comment', #{commentId}, #{shard}, (SELECT COUNT(*) FROM ins) - (SELECT COUNT(*) FROM del) "
+            + "WHERE EXISTS (SELECT 1 FROM ins) OR EXISTS (SELECT 1 FROM del) "
+            + "ON CONFLICT (target_type, target_id, shard) DO UPDATE SET delta = like_count_shards.delta + EXCLUDED.delta "
+            + "RETURNING shard) "
+            + "SELECT CASE WHEN NOT EXISTS (SELECT 1 FROM target) THEN -1 "
+            + "WHEN EXISTS (SELECT 1 FROM ins) THEN 1 "
+            + "WHEN EXISTS (SELECT 1 FROM del) THEN 0 "
+            + "ELSE 2 END AS liked, (SELECT post_id FROM target) AS post_id")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    Map<String, Object> toggleSharded(@Param("commentId") Long commentId,
+                                      @Param("userId") Long userId,
+                                      @Param("shard") int shard);
 }
@@ -3,11 +3,82 @@ package com.hnu.campus.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hnu.campus.entity.Comment;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 评论Mapper接口
  */
 @Mapper
 public interface CommentMapper extends BaseMapper<Comment> {
-}
+    /**
+     * 每条父评论取最早的 limit 条直接回复，用于评论分页中的回复预览
+     */
+    @Select("<script>"
+            + "SELECT id, post_id, user_id, content, parent_id, like_count, reply_count, status, create_time, update_time FROM ("
+            + "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.parent_id ORDER BY c.create_time, c.id) AS rn "
+            + "FROM comments c WHERE c.parent_id IN "
+            + "<foreach collection='parentIds' item='parentId' open='(' separator=',' close=')'>#{parentId}</foreach>"
+            + ") t WHERE t.rn &lt;= #{limit} ORDER BY t.parent_id, t.create_time, t.id"
+            + "</script>")
+    List<Comment> selectReplyPreviews(@Param("parentIds") Collection<Long> parentIds, @Param("limit") int limit);
+
+    /**
+     * 批量累加直接回复数，由评论计数缓冲定时调用
+     */
+    @Update("<script>"
+            + "UPDATE comments c SET reply_count = GREATEST(c.reply_count + v.delta, 0) "
+            + "FROM (VALUES "
+            + "<foreach collection='deltas' index='commentId' item='delta' separator=','>"
+            + "(CAST(#{commentId} AS BIGINT), CAST(#{delta} AS INT))"
+            + "</foreach>"
+            + ") AS v(id, delta) WHERE c.id = v.id"
+            + "</script>")
+    int incrementReplyCounts(@Param("deltas") Map<Long, Long> deltas);
 
+    /**
+     * 按实际回复重算 (fromId, toId] 区间内评论的回复数，只改写与实际不一致的行，返回修正的行数。
+     * skipIds 中的评论有尚未落库的回复数增量，跳过
+     */
+    @Update("<script>"
+            + "UPDATE comments c SET reply_count = r.actual "
+            + "FROM (SELECT c2.id, COUNT(r2.id) AS actual FROM comments c2 "
+            + "LEFT JOIN comments r2 ON r2.parent_id = c2.id "
+            + "WHERE c2.id > #{fromId} AND c2.id <= #{toId} "
+            + "<if test='skipIds != null and !skipIds.isEmpty()'>"
+            + "AND c2.id NOT IN <foreach collection='skipIds' item='skipId' open='(' separator=',' close=')'>#{skipId}</foreach> "
+            + "</if>"
+            + "GROUP BY c2.id) r "
+            + "WHERE c.id = r.id AND c.reply_count <> r.actual"
+            + "</script>")
+    int reconcileReplyCounts(@Param("fromId") long fromId, @Param("toId") long toId,
+                             @Param("skipIds") Collection<Long> skipIds);
+
+    @Select("SELECT COALESCE(MAX(id), 0) FROM comments")
+    long selectMaxId();
+
+    /**
+     * 批量逻辑删除评论。commentIds 不为 null 时删除这些评论，否则删除该用户最多 limit 条正常评论；
+     * 只改写正常状态的行，每删除一条返回一次其帖子ID，用于扣减帖子评论数
+     */
+    @Select("<script>"
+            + "UPDATE comments SET status = 'deleted', content = #{placeholder}, update_time = NOW() WHERE id IN "
+            + "<choose><when test='commentIds != null'>"
+            + "<foreach collection='commentIds' item='commentId' open='(' separator=',' close=')'>#{commentId}</foreach>"
+            + "</when><otherwise>"
+            + "(SELECT id FROM comments WHERE user_id = #{userId} AND status = 'normal' ORDER BY id LIMIT #{limit})"
+            + "</otherwise></choose>"
+            + " AND status = 'normal' RETURNING post_id"
+            + "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Long> markDeletedBatch(@Param("commentIds") Collection<Long> commentIds,
+                                @Param("userId") Long userId,
+                                @Param("placeholder") String placeholder,
+                                @Param("limit") int limit);
+}
@@ -0,0 +1,53 @@
+package com.hnu.campus.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 点赞计数分片Mapper接口（like_count_shards 表，没有对应实体）
+ */
+@Mapper
+public interface LikeCountShardMapper {
+    /**
+     * 给定目标尚未合并的分片增量之和
+     */
+    @Select("<script>"
+            + "SELECT target_id, SUM(delta) AS delta FROM like_count_shards "
+            + "WHERE target_type = #{targetType} AND target_id IN "
+            + "<foreach collection='targetIds' item='targetId' open='(' separator=',' close=')'>#{targetId}</foreach>"
+            + " GROUP BY target_id"
+            + "</script>")
+    List<Map<String, Object>> sumDeltas(@Param("targetType") String targetType,
+                                        @Param("targetIds") Collection<Long> targetIds);
+
+    /**
+     * 取走全部评论分片并合并回 comments.like_count，返回涉及的帖子ID
+     */
+    @Select("WITH folded AS (DELETE FROM like_count_shards WHERE target_type = 'comment' RETURNING target_id, delta), "
+            + "sums AS (SELECT target_id, SUM(delta) AS delta FROM folded GROUP BY target_id) "
+            + "UPDATE comments c SET like_count = GREATEST(c.like_count + s.delta, 0), update_time = NOW() "
+            + "FROM sums s WHERE c.id = s.target_id RETURNING c.post_id")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Long> foldCommentShards();
+
+    /**
+     * 取走全部帖子分片并合并回 posts.like_count，同时刷新热度快照，返回涉及的帖子ID
+     */
+    @Select("WITH folded AS (DELETE FROM like_count_shards WHERE target_type = 'post' RETURNING target_id, delta), "
+            + "sums AS (SELECT target_id, SUM(delta) AS delta FROM folded GROUP BY target_id) "
+            + "UPDATE posts p SET like_count = GREATEST(p.like_count + s.delta, 0), "
+            + "hot_score = ROUND(CAST((p.view_count * #{viewWeight} + GREATEST(p.like_count + s.delta, 0) * #{likeWeight}) "
+            + "* EXP(-GREATEST(0, EXTRACT(EPOCH FROM (NOW() - p.create_time))) * #{lambda}) AS NUMERIC), 2), "
+            + "update_time = NOW() "
+            + "FROM sums s WHERE p.id = s.target_id RETURNING p.id")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Long> foldPostShards(@Param("viewWeight") double viewWeight,
+                              @Param("likeWeight") double likeWeight,
+                              @Param("lambda") double lambda);
+}
@@ -2,12 +2,91 @@ package com.hnu.campus.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hnu.campus.entity.PostLike;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子点赞Mapper接口
  */
 @Mapper
 public interface PostLikeMapper extends BaseMapper<PostLike> {
-}
+    /**
+     * 批量写入点赞记录，已存在的 (post_id, user_id) 忽略，重复落库不会报错
+     */
+    @Insert("<script>"
+            + "INSERT INTO post_likes (post_id, user_id, create_time) VALUES "
+            + "<foreach collection='likes' item='like' separator=','>"
+            + "(#{like.postId}, #{like.userId}, #{like.createTime})"
+            + "</foreach>"
+            + " ON CONFLICT (post_id, user_id) DO NOTHING"
+            + "</script>")
+    int insertIgnoreBatch(@Param("likes") List<PostLike> likes);
+
+    /**
+     * 按 (post_id, user_id) 批量删除点赞记录
+     */
+    @Delete("<script>"
+            + "DELETE FROM post_likes WHERE (post_id, user_id) IN ("
+            + "<foreach collection='likes' item='like' separator=','>"
+            + "(#{like.postId}, #{like.userId})"
+            + "</foreach>"
+            + ")"
+            + "</script>")
+    int deleteBatch(@Param("likes") List<PostLike> likes);
 
+    /**
+     * 一条语句切换点赞：插入或删除点赞记录，同时增减 like_count 并重算热度快照，不需要先查再写。
+     * 返回 liked（1 点赞 / 0 取消 / 2 未改变 / -1 帖子不存在）和 category_id。
+     * 同一用户的并发请求在快照之后插入了点赞时，插入冲突、删除也找不到行，本次什么都没改，返回 2
+     */
+    @Select("WITH target AS (SELECT id FROM posts WHERE id = #{postId} AND status = 'normal' FOR UPDATE), "
+            + "ins AS (INSERT INTO post_likes (post_id, user_id, create_time) "
+            + "SELECT id, #{userId}, NOW() FROM target ON CONFLICT (post_id, user_id) DO NOTHING RETURNING post_id), "
+            + "del AS (DELETE FROM post_likes WHERE post_id = #{postId} AND user_id = #{userId} "
+            + "AND EXISTS (SELECT 1 FROM target) AND NOT EXISTS (SELECT 1 FROM ins) RETURNING post_id), "
+            + "upd AS (UPDATE posts p SET like_count = GREATEST(p.like_count + d.delta, 0), "
+            + "hot_score = ROUND(CAST((p.view_count * #{viewWeight} + GREATEST(p.like_count + d.delta, 0) * #{likeWeight}) "
+            + "* EXP(-GREATEST(0, EXTRACT(EPOCH FROM (NOW() - p.create_time))) * #{lambda}) AS NUMERIC), 2), "
+            + "update_time = NOW() "
+            + "FROM (SELECT (SELECT COUNT(*) FROM ins) - (SELECT COUNT(*) FROM del) AS delta) d "
+            + "WHERE p.id = #{postId} AND EXISTS (SELECT 1 FROM target) RETURNING p.category_id) "
+            + "SELECT CASE WHEN NOT EXISTS (SELECT 1 FROM target) THEN -1 "
+            + "WHEN EXISTS (SELECT 1 FROM ins) THEN 1 "
+            + "WHEN EXISTS (SELECT 1 FROM del) THEN 0 "
+            + "ELSE 2 END AS liked, (SELECT category_id FROM upd) AS category_id")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    Map<String, Object> toggle(@Param("postId") Long postId,
+                               @Param("userId") Long userId,
+                               @Param("viewWeight") double viewWeight,
+                               @Param("likeWeight") double likeWeight,
+                               @Param("lambda") double lambda);
+
+    /**
+     * 热点帖子的点赞切换：不更新 posts 行，把 ±1 累加到 like_count_shards 的一个分片，热度快照在合并时刷新
+     */
+    @Select("WITH target AS (SELECT id, category_id FROM posts WHERE id = #{postId} AND status = 'normal'), "
+            + "ins AS (INSERT INTO post_likes (post_id, user_id, create_time) "
+            + "SELECT id, #{userId}, NOW() FROM target ON CONFLICT (post_id, user_id) DO NOTHING RETURNING post_id), "
+            + "del AS (DELETE FROM post_likes WHERE post_id = #{postId} AND user_id = #{userId} "
+            + "AND EXISTS (SELECT 1 FROM target) AND NOT EXISTS (SELECT 1 FROM ins) RETURNING post_id), "
+            + "shard AS (INSERT INTO like_count_shards (target_type, target_id, shard, delta) "
+            + "SELECT 'post', #{postId}, #{shard}, (SELECT COUNT(*) FROM ins) - (SELECT COUNT(*) FROM del) "
+            + "WHERE EXISTS (SELECT 1 FROM ins) OR EXISTS (SELECT 1 FROM del) "
+            + "ON CONFLICT (target_type, target_id, shard) DO UPDATE SET delta = like_count_shards.delta + EXCLUDED.delta "
+            + "RETURNING shard) "
+            + "SELECT CASE WHEN NOT EXISTS (SELECT 1 FROM target) THEN -1 "
+            + "WHEN EXISTS (SELECT 1 FROM ins) THEN 1 "
+            + "WHEN EXISTS (SELECT 1 FROM del) THEN 0 "
+            + "ELSE 2 END AS liked, (SELECT category_id FROM target) AS category_id")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    Map<String, Object> toggleSharded(@Param("postId") Long postId,
+                                      @Param("userId") Long userId,
+                                      @Param("shard") int shard);
+}
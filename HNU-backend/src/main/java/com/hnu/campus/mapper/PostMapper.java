@@ -3,11 +3,164 @@ package com.hnu.campus.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hnu.campus.entity.Post;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子Mapper接口
  */
 @Mapper
 public interface PostMapper extends BaseMapper<Post> {
-}
+    /**
+     * 写入全文检索向量，标题权重A、正文权重B；入参为二元分词后以空格分隔的文本
+     */
+    @Update("UPDATE posts SET search_vector = "
+            + "setweight(to_tsvector('simple', #{titleTokens}), 'A') || "
+            + "setweight(to_tsvector('simple', #{contentTokens}), 'B') "
+            + "WHERE id = #{id}")
+    int updateSearchVector(@Param("id") Long id,
+                           @Param("titleTokens") String titleTokens,
+                           @Param("contentTokens") String contentTokens);
+
+    /**
+     * 基于 search_vector 的全文检索，走 GIN 索引，按 ts_rank 排序
+     */
+    @Select("<script>"
+            + "SELECT id, title, content, category_id, author_id, contact_info, view_count, like_count, "
+            + "comment_count, hot_score, status, create_time, update_time FROM posts "
+            + "WHERE status = 'normal' AND search_vector @@ plainto_tsquery('simple', #{query}) "
+            + "<if test='categoryId != null'>AND category_id = #{categoryId} </if>"
+            + "ORDER BY ts_rank(search_vector, plainto_tsquery('simple', #{query})) DESC, create_time DESC, id DESC "
+            + "LIMIT #{limit} OFFSET #{offset}"
+            + "</script>")
+    List<Post> searchByVector(@Param("query") String query,
+                              @Param("categoryId") Integer categoryId,
+                              @Param("limit") int limit,
+                              @Param("offset") long offset);
+
+    /**
+     * 短关键词无法命中二元分词索引时，用 pg_trgm 做模糊匹配并按相似度排序。
+     * pattern 为已转义 \、%、_ 的关键词，keyword 为原始关键词，只用于计算相似度。
+     * 单字凑不出三元组，trigram 索引用不上，只在 since 之后发布的帖子里匹配，由 create_time 索引限定扫描范围
+     */
+    @Select("<script>"
+            + "SELECT id, title, content, category_id, author_id, contact_info, view_count, like_count, "
+            + "comment_count, hot_score, status, create_time, update_time FROM posts "
+            + "WHERE status = 'normal' "
+            + "AND (title ILIKE '%' || #{pattern} || '%' ESCAPE '\\' "
+            + "OR content ILIKE '%' || #{pattern} || '%' ESCAPE '\\') "
+            + "AND create_time >= #{since} "
+            + "<if test='categoryId != null'>AND category_id = #{categoryId} </if>"
+            + "ORDER BY word_similarity(#{keyword}, title) DESC, create_time DESC, id DESC "
+            + "LIMIT #{limit} OFFSET #{offset}"
+            + "</script>")
+    List<Post> searchBySimilarity(@Param("keyword") String keyword,
+                                  @Param("pattern") String pattern,
+                                  @Param("categoryId") Integer categoryId,
+                                  @Param("since") LocalDateTime since,
+                                  @Param("limit") int limit,
+                                  @Param("offset") long offset);
+
+    /**
+     * 查找尚未生成检索向量的帖子，用于补齐历史数据
+     */
+    @Select("SELECT id, title, content FROM posts WHERE search_vector IS NULL AND id > #{afterId} "
+            + "ORDER BY id LIMIT #{limit}")
+    List<Post> selectWithoutSearchVector(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 批量累加浏览量并按新浏览量重算热度快照，一条语句处理一批帖子，不需要先查再写
+     */
+    @Update("<script>"
+            + "UPDATE posts p SET view_count = p.view_count + v.delta, "
+            + "hot_score = ROUND(CAST(((p.view_count + v.delta) * #{viewWeight} + p.like_count * #{likeWeight}) "
+            + "* EXP(-GREATEST(0, EXTRACT(EPOCH FROM (NOW() - p.create_time))) * #{lambda}) AS NUMERIC), 2), "
+            + "update_time = NOW() "
+            + "FROM (VALUES "
+            + "<foreach collection='deltas' index='postId' item='delta' separator=','>"
+            + "(CAST(#{postId} AS BIGINT), CAST(#{delta} AS INT))"
+            + "</foreach>"
+            + ") AS v(id, delta) WHERE p.id = v.id"
+            + "</script>")
+    int incrementViewCounts(@Param("deltas") Map<Long, Long> deltas,
+                            @Param("viewWeight") double viewWeight,
+                            @Param("likeWeight") double likeWeight,
+                            @Param("lambda") double lambda);
 
+    /**
+     * 按 post_likes 重算一批帖子的点赞数并刷新热度快照，点赞异步落库后调用
+     */
+    @Update("<script>"
+            + "UPDATE posts p SET like_count = l.actual, "
+            + "hot_score = ROUND(CAST((p.view_count * #{viewWeight} + l.actual * #{likeWeight}) "
+            + "* EXP(-GREATEST(0, EXTRACT(EPOCH FROM (NOW() - p.create_time))) * #{lambda}) AS NUMERIC), 2) "
+            + "FROM (SELECT p2.id, COUNT(pl.id) AS actual FROM posts p2 "
+            + "LEFT JOIN post_likes pl ON pl.post_id = p2.id WHERE p2.id IN "
+            + "<foreach collection='postIds' item='postId' open='(' separator=',' close=')'>#{postId}</foreach>"
+            + " GROUP BY p2.id) l WHERE p.id = l.id"
+            + "</script>")
+    int refreshLikeCounts(@Param("postIds") Collection<Long> postIds,
+                          @Param("viewWeight") double viewWeight,
+                          @Param("likeWeight") double likeWeight,
+                          @Param("lambda") double lambda);
+
+    /**
+     * 批量累加评论数（增量可为负），由评论计数缓冲定时调用
+     */
+    @Update("<script>"
+            + "UPDATE posts p SET comment_count = GREATEST(p.comment_count + v.delta, 0) "
+            + "FROM (VALUES "
+            + "<foreach collection='deltas' index='postId' item='delta' separator=','>"
+            + "(CAST(#{postId} AS BIGINT), CAST(#{delta} AS INT))"
+            + "</foreach>"
+            + ") AS v(id, delta) WHERE p.id = v.id"
+            + "</script>")
+    int incrementCommentCounts(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 按评论表重算 (fromId, toId] 区间内帖子的评论数，只改写与实际不一致的行，返回修正的帖子ID。
+     * skipIds 中的帖子有尚未落库的评论数增量，跳过
+     */
+    @Select("<script>"
+            + "UPDATE posts p SET comment_count = c.actual "
+            + "FROM (SELECT p2.id, COUNT(cm.id) AS actual FROM posts p2 "
+            + "LEFT JOIN comments cm ON cm.post_id = p2.id AND cm.status = 'normal' "
+            + "WHERE p2.id > #{fromId} AND p2.id <= #{toId} "
+            + "<if test='skipIds != null and !skipIds.isEmpty()'>"
+            + "AND p2.id NOT IN <foreach collection='skipIds' item='skipId' open='(' separator=',' close=')'>#{skipId}</foreach> "
+            + "</if>"
+            + "GROUP BY p2.id) c "
+            + "WHERE p.id = c.id AND p.comment_count <> c.actual RETURNING p.id"
+            + "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Long> reconcileCommentCounts(@Param("fromId") long fromId, @Param("toId") long toId,
+                                      @Param("skipIds") Collection<Long> skipIds);
+
+    @Select("SELECT COALESCE(MAX(id), 0) FROM posts")
+    long selectMaxId();
+
+    /**
+     * 批量删除帖子。postIds 不为 null 时删除这些帖子，否则删除该作者最多 limit 篇正常帖子；
+     * 只改写正常状态的行，返回被删除帖子的 id 和 category_id
+     */
+    @Select("<script>"
+            + "UPDATE posts SET status = 'deleted', update_time = NOW() WHERE id IN "
+            + "<choose><when test='postIds != null'>"
+            + "<foreach collection='postIds' item='postId' open='(' separator=',' close=')'>#{postId}</foreach>"
+            + "</when><otherwise>"
+            + "(SELECT id FROM posts WHERE author_id = #{authorId} AND status = 'normal' ORDER BY id LIMIT #{limit})"
+            + "</otherwise></choose>"
+            + " AND status = 'normal' RETURNING id, category_id"
+            + "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Post> markDeletedBatch(@Param("postIds") Collection<Long> postIds,
+                                @Param("authorId") Long authorId,
+                                @Param("limit") int limit);
+}
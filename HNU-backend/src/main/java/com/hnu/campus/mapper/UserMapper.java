@@ -3,11 +3,48 @@ package com.hnu.campus.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hnu.campus.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 用户Mapper接口
  */
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
-}
+    /**
+     * 批量审核。userIds 不为 null 时更新这些用户，否则更新最多 limit 个待审核用户（可限定注册时间截止）；
+     * 只改写审核状态不同的行，返回被改写的用户ID
+     */
+    @Select("<script>"
+            + "UPDATE users SET auth_status = #{authStatus}, update_time = NOW() WHERE id IN "
+            + "<choose><when test='userIds != null'>"
+            + "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>"
+            + "</when><otherwise>"
+            + "(SELECT id FROM users WHERE auth_status = 'pending'"
+            + "<if test='createdBefore != null'> AND create_time &lt;= #{createdBefore}</if>"
+            + " ORDER BY id LIMIT #{limit})"
+            + "</otherwise></choose>"
+            + " AND auth_status &lt;&gt; #{authStatus} RETURNING id"
+            + "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Long> updateAuthStatusBatch(@Param("userIds") Collection<Long> userIds,
+                                     @Param("authStatus") String authStatus,
+                                     @Param("createdBefore") LocalDateTime createdBefore,
+                                     @Param("limit") int limit);
 
+    /**
+     * 批量禁言/解禁，只改写状态不同的行，返回被改写的用户ID
+     */
+    @Select("<script>"
+            + "UPDATE users SET is_muted = #{isMuted}, update_time = NOW() WHERE id IN "
+            + "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>"
+            + " AND is_muted &lt;&gt; #{isMuted} RETURNING id"
+            + "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Long> updateMutedBatch(@Param("userIds") Collection<Long> userIds, @Param("isMuted") boolean isMuted);
+}
@@ -0,0 +1,625 @@
+package com.hnu.campus.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hnu.campus.entity.Post;
+import com.hnu.campus.mapper.PostMapper;
+import com.hnu.campus.util.CjkBigramTokenizer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 进程内倒排索引：标题和正文做中文二元分词，倒排表用原生 int 数组存储，BM25 打分。
+ * 启动时优先加载本地快照并增量追平，否则按主键分批扫描 posts 全量构建；
+ * 之后由发帖/删帖/管理员删帖增量维护。
+ * 多实例部署时，增量变更通过 Redis 频道 {@link #CHANNEL} 广播帖子ID，其他实例按ID回源数据库重新索引或移除；
+ * 另有定时追平按 update_time 重新处理最近变更的帖子，补上订阅断开期间丢失的消息。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "post.search.mode", havingValue = "memory")
+public class InMemoryPostSearchEngine implements PostSearchEngine, MessageListener {
+    public static final String CHANNEL = "post:search:sync";
+    private static final int SNAPSHOT_MAGIC = 0x48505358;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final int TITLE_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final PostMapper postMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    /**
+     * 本实例标识，收到自己发布的消息时忽略
+     */
+    private final String instanceId = UUID.randomUUID().toString().replace("-", "");
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> docIdByPostId = new HashMap<>();
+    private long[] postIds = new long[1024];
+    private int[] categoryIds = new int[1024];
+    private int[] docLengths = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private int docCount;
+    private int liveCount;
+    private int deletedSinceCompact;
+    private long totalLength;
+    private long maxPostId;
+
+    private volatile boolean ready;
+    /**
+     * 上次追平开始的时间，下次追平处理此后变更的帖子
+     */
+    private volatile LocalDateTime syncedAt;
+
+    @Value("${post.search.memory.snapshot-path:./data/post-search.idx}")
+    private String snapshotPath;
+
+    public InMemoryPostSearchEngine(PostMapper postMapper, StringRedisTemplate redisTemplate,
+                                    RedisMessageListenerContainer listenerContainer) {
+        this.postMapper = postMapper;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startup() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        Thread loader = new Thread(this::loadOrBuild, "post-search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Override
+    public List<Long> search(String keyword, Integer categoryId, int offset, int limit) {
+        if (!ready || keyword == null || CjkBigramTokenizer.isTooShortForIndex(keyword)) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(CjkBigramTokenizer.tokenize(keyword)));
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return List.of();
+            }
+            List<PostingList> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null || list.size == 0) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            // 所有词都必须命中：以最短的倒排表为主，其余倒排表按文档号二分跟进，只为命中的文档打分
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            double avgLength = (double) totalLength / liveCount;
+            double[] idfs = new double[lists.size()];
+            for (int t = 0; t < lists.size(); t++) {
+                int size = lists.get(t).size;
+                idfs[t] = Math.log(1 + (liveCount - size + 0.5) / (size + 0.5));
+            }
+            int[] cursors = new int[lists.size()];
+            PostingList lead = lists.get(0);
+            int wanted = offset + limit;
+            PriorityQueue<Hit> top = new PriorityQueue<>(InMemoryPostSearchEngine::compareHits);
+            candidates:
+            for (int i = 0; i < lead.size; i++) {
+                int doc = lead.docs[i];
+                if (deleted.get(doc) || (categoryId != null && categoryIds[doc] != categoryId)) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                double score = termScore(idfs[0], lead.freqs[i], norm);
+                for (int t = 1; t < lists.size(); t++) {
+                    PostingList list = lists.get(t);
+                    int pos = list.seek(cursors[t], doc);
+                    cursors[t] = pos;
+                    if (pos == list.size) {
+                        break candidates;
+                    }
+                    if (list.docs[pos] != doc) {
+                        continue candidates;
+                    }
+                    score += termScore(idfs[t], list.freqs[pos], norm);
+                }
+                top.offer(new Hit(doc, (float) score));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+            Hit[] ordered = new Hit[top.size()];
+            for (int i = ordered.length - 1; i >= 0; i--) {
+                ordered[i] = top.poll();
+            }
+            List<Long> result = new ArrayList<>();
+            for (int i = offset; i < ordered.length; i++) {
+                result.add(postIds[ordered[i].doc()]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Post post) {
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        indexLocal(post);
+        publish("index", post.getId());
+    }
+
+    @Override
+    public void remove(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        removeLocal(postId);
+        publish("remove", postId);
+    }
+
+    /**
+     * 消息格式为 "{实例标识}:{index|remove}:{帖子ID}"；index 只带ID，按ID回源数据库取最新内容
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        try {
+            Long postId = Long.valueOf(parts[2]);
+            if ("remove".equals(parts[1])) {
+                removeLocal(postId);
+                return;
+            }
+            Post post = postMapper.selectOne(new LambdaQueryWrapper<Post>()
+                    .select(Post::getId, Post::getTitle, Post::getContent, Post::getCategoryId, Post::getStatus)
+                    .eq(Post::getId, postId));
+            if (post != null && "normal".equals(post.getStatus())) {
+                indexLocal(post);
+            } else {
+                removeLocal(postId);
+            }
+        } catch (Exception ex) {
+            // 定时追平时会重新处理
+            log.warn("Apply post search sync message {} failed: {}", parts[2], ex.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${post.search.memory.catch-up-interval-ms:300000}",
+            fixedDelayString = "${post.search.memory.catch-up-interval-ms:300000}")
+    public void scheduledCatchUp() {
+        if (!ready) {
+            return;
+        }
+        try {
+            catchUp(syncedAt);
+        } catch (Exception ex) {
+            log.warn("Catch up post search index failed: {}", ex.getMessage());
+        }
+    }
+
+    private void indexLocal(Post post) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(post.getId());
+            addLocked(post);
+            compactIfNeededLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocal(Long postId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(postId);
+            compactIfNeededLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${post.search.memory.snapshot-interval-ms:600000}",
+            fixedDelayString = "${post.search.memory.snapshot-interval-ms:600000}")
+    public void scheduledSnapshot() {
+        if (ready) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ready) {
+            writeSnapshot();
+        }
+    }
+
+    private static int compareHits(Hit a, Hit c) {
+        int byScore = Float.compare(a.score(), c.score());
+        // 分数相同则较新的帖子（内部文档号更大）排前面，压缩重新编号时保持文档号的先后顺序
+        return byScore != 0 ? byScore : Integer.compare(a.doc(), c.doc());
+    }
+
+    private static double termScore(double idf, int tf, double norm) {
+        return idf * tf * (K1 + 1) / (tf + norm);
+    }
+
+    private void loadOrBuild() {
+        long started = System.currentTimeMillis();
+        try {
+            LocalDateTime since = readSnapshot();
+            if (since == null) {
+                syncedAt = LocalDateTime.now();
+                streamPosts(wrapper -> wrapper.eq(Post::getStatus, "normal"));
+            } else {
+                catchUp(since);
+            }
+            ready = true;
+            log.info("Post search index ready: {} live posts, {} terms, took {} ms",
+                    liveCount, postings.size(), System.currentTimeMillis() - started);
+        } catch (Exception ex) {
+            log.error("Build post search index failed, search falls back to database", ex);
+        }
+    }
+
+    /**
+     * 重新处理 since 之后新增或变更（含删除）的帖子，留出一分钟时钟误差；快照加载后和定时追平共用
+     */
+    private void catchUp(LocalDateTime since) {
+        long knownMaxId;
+        lock.readLock().lock();
+        try {
+            knownMaxId = maxPostId;
+        } finally {
+            lock.readLock().unlock();
+        }
+        LocalDateTime changedSince = since.minusMinutes(1);
+        syncedAt = LocalDateTime.now();
+        streamPosts(wrapper -> wrapper.and(query -> query.gt(Post::getId, knownMaxId)
+                .or()
+                .ge(Post::getUpdateTime, changedSince)));
+    }
+
+    private void publish(String action, Long postId) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, instanceId + ":" + action + ":" + postId);
+        } catch (Exception ex) {
+            // 其他实例在下次定时追平时补上
+            log.warn("Publish post search sync for post {} failed: {}", postId, ex.getMessage());
+        }
+    }
+
+    private void streamPosts(Consumer<LambdaQueryWrapper<Post>> condition) {
+        long afterId = 0;
+        while (true) {
+            LambdaQueryWrapper<Post> wrapper = new LambdaQueryWrapper<>();
+            condition.accept(wrapper);
+            wrapper.select(Post::getId, Post::getTitle, Post::getContent, Post::getCategoryId, Post::getStatus)
+                    .gt(Post::getId, afterId)
+                    .orderByAsc(Post::getId)
+                    .last("limit " + BUILD_BATCH_SIZE);
+            List<Post> batch = postMapper.selectList(wrapper);
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (Post post : batch) {
+                if ("normal".equals(post.getStatus())) {
+                    indexLocal(post);
+                } else {
+                    removeLocal(post.getId());
+                }
+                afterId = post.getId();
+            }
+        }
+    }
+
+    private void addLocked(Post post) {
+        Map<String, Integer> freqs = new HashMap<>();
+        List<String> titleTokens = CjkBigramTokenizer.tokenize(post.getTitle());
+        List<String> contentTokens = CjkBigramTokenizer.tokenize(post.getContent());
+        for (String token : titleTokens) {
+            freqs.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : contentTokens) {
+            freqs.merge(token, 1, Integer::sum);
+        }
+        int doc = docCount;
+        ensureDocCapacity(doc + 1);
+        int length = titleTokens.size() * TITLE_WEIGHT + contentTokens.size();
+        postIds[doc] = post.getId();
+        categoryIds[doc] = post.getCategoryId() == null ? -1 : post.getCategoryId();
+        docLengths[doc] = length;
+        docCount++;
+        liveCount++;
+        totalLength += length;
+        maxPostId = Math.max(maxPostId, post.getId());
+        docIdByPostId.put(post.getId(), doc);
+        for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new PostingList()).add(doc, entry.getValue());
+        }
+    }
+
+    private void removeLocked(Long postId) {
+        Integer doc = docIdByPostId.remove(postId);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        deletedSinceCompact++;
+        liveCount--;
+        totalLength -= docLengths[doc];
+    }
+
+    private void compactIfNeededLocked() {
+        if (deletedSinceCompact > Math.max(liveCount / 2, 1024)) {
+            compactLocked();
+        }
+    }
+
+    /**
+     * 剔除已删除文档并按原顺序重新编号，文档号保持稠密，文档数组按存活数收缩
+     */
+    private void compactLocked() {
+        if (docCount == liveCount) {
+            deletedSinceCompact = 0;
+            return;
+        }
+        int[] remap = new int[docCount];
+        int capacity = Math.max(1024, liveCount + liveCount / 2);
+        long[] newPostIds = new long[capacity];
+        int[] newCategoryIds = new int[capacity];
+        int[] newDocLengths = new int[capacity];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next;
+            newPostIds[next] = postIds[doc];
+            newCategoryIds[next] = categoryIds[doc];
+            newDocLengths[next] = docLengths[doc];
+            docIdByPostId.put(postIds[doc], next);
+            next++;
+        }
+        postings.values().removeIf(list -> {
+            list.remap(remap);
+            return list.size == 0;
+        });
+        postIds = newPostIds;
+        categoryIds = newCategoryIds;
+        docLengths = newDocLengths;
+        docCount = next;
+        deleted.clear();
+        deletedSinceCompact = 0;
+        log.info("Compacted post search index, {} live posts, {} terms", liveCount, postings.size());
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity <= postIds.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, postIds.length * 2);
+        postIds = Arrays.copyOf(postIds, newLength);
+        categoryIds = Arrays.copyOf(categoryIds, newLength);
+        docLengths = Arrays.copyOf(docLengths, newLength);
+    }
+
+    private void writeSnapshot() {
+        Path target = Paths.get(snapshotPath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        // 写快照前先压缩，快照里只有存活文档；压缩完降级为读锁，写文件期间不阻塞搜索
+        lock.writeLock().lock();
+        try {
+            compactLocked();
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (OutputStream raw = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw, 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeLong(maxPostId);
+                out.writeInt(docCount);
+                for (int doc = 0; doc < docCount; doc++) {
+                    out.writeLong(postIds[doc]);
+                    out.writeInt(categoryIds[doc]);
+                    out.writeInt(docLengths[doc]);
+                    out.writeBoolean(deleted.get(doc));
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                    PostingList list = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(list.size);
+                    for (int i = 0; i < list.size; i++) {
+                        out.writeInt(list.docs[i]);
+                        out.writeInt(list.freqs[i]);
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote post search snapshot to {}", target);
+        } catch (IOException ex) {
+            log.warn("Write post search snapshot failed: {}", ex.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 加载快照，返回快照时间；快照不存在或损坏时返回 null
+     */
+    private LocalDateTime readSnapshot() {
+        Path source = Paths.get(snapshotPath);
+        if (!Files.isRegularFile(source)) {
+            return null;
+        }
+        lock.writeLock().lock();
+        try (InputStream raw = Files.newInputStream(source);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Ignore incompatible post search snapshot {}", source);
+                return null;
+            }
+            long snapshotAt = in.readLong();
+            maxPostId = in.readLong();
+            int docs = in.readInt();
+            ensureDocCapacity(docs);
+            for (int doc = 0; doc < docs; doc++) {
+                postIds[doc] = in.readLong();
+                categoryIds[doc] = in.readInt();
+                docLengths[doc] = in.readInt();
+                if (in.readBoolean()) {
+                    deleted.set(doc);
+                } else {
+                    docIdByPostId.put(postIds[doc], doc);
+                    liveCount++;
+                    totalLength += docLengths[doc];
+                }
+            }
+            docCount = docs;
+            int terms = in.readInt();
+            for (int t = 0; t < terms; t++) {
+                String term = in.readUTF();
+                int size = in.readInt();
+                PostingList list = new PostingList(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(in.readInt(), in.readInt());
+                }
+                postings.put(term, list);
+            }
+            // 旧快照可能带有已删除文档，加载后重新编号
+            compactLocked();
+            log.info("Loaded post search snapshot {} with {} live posts", source, liveCount);
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshotAt), ZoneId.systemDefault());
+        } catch (IOException ex) {
+            log.warn("Read post search snapshot failed, rebuilding: {}", ex.getMessage());
+            resetLocked();
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void resetLocked() {
+        postings.clear();
+        docIdByPostId.clear();
+        deleted.clear();
+        docCount = 0;
+        liveCount = 0;
+        deletedSinceCompact = 0;
+        totalLength = 0;
+        maxPostId = 0;
+    }
+
+    /**
+     * 倒排表：文档号升序追加，词频按标题加权累计
+     */
+    private static final class PostingList {
+        private int[] docs;
+        private int[] freqs;
+        private int size;
+
+        private PostingList() {
+            this(4);
+        }
+
+        private PostingList(int capacity) {
+            docs = new int[Math.max(capacity, 1)];
+            freqs = new int[Math.max(capacity, 1)];
+        }
+
+        private void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        /**
+         * 返回从 from 开始第一个文档号不小于 doc 的位置，没有时返回 size
+         */
+        private int seek(int from, int doc) {
+            if (from >= size || docs[from] >= doc) {
+                return from;
+            }
+            int pos = Arrays.binarySearch(docs, from, size, doc);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+
+        /**
+         * 按新文档号改写，-1 表示已删除；新编号保持原顺序，倒排表仍然有序
+         */
+        private void remap(int[] newDocs) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = newDocs[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (size < docs.length / 4 && docs.length > 4) {
+                docs = Arrays.copyOf(docs, Math.max(size * 2, 4));
+                freqs = Arrays.copyOf(freqs, Math.max(size * 2, 4));
+            }
+        }
+    }
+
+    private record Hit(int doc, float score) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.hnu.campus.search;
+
+import com.hnu.campus.entity.Post;
+
+import java.util.List;
+
+/**
+ * 帖子搜索引擎扩展点，PostServiceImpl#searchPosts 在引擎可用时委托给它。
+ */
+public interface PostSearchEngine {
+    /**
+     * 搜索帖子ID，按相关度倒序。
+     * 返回 null 表示引擎当前无法回答（未就绪、关键词过短等），调用方需要回退到数据库检索。
+     */
+    List<Long> search(String keyword, Integer categoryId, int offset, int limit);
+
+    /**
+     * 新增或重新索引一篇帖子
+     */
+    void index(Post post);
+
+    /**
+     * 从索引中移除帖子
+     */
+    void remove(Long postId);
+}
@@ -29,6 +29,7 @@ public class AuthInterceptor implements HandlerInterceptor {
     private final JwtUtil jwtUtil;
     private final StringRedisTemplate redisTemplate;
     private final UserMapper userMapper;
+    private final AuthStateCache authStateCache;
 
     @Value("${jwt.role-cache-seconds:1800}")
     private long roleCacheSeconds;
@@ -40,15 +41,21 @@ public class AuthInterceptor implements HandlerInterceptor {
             new PublicEndpoint(HttpMethod.GET, "/api/v1/posts/search"),
             new PublicEndpoint(HttpMethod.GET, "/api/v1/posts/hot"),
             new PublicEndpoint(HttpMethod.GET, "/api/v1/posts/*"),
+            new PublicEndpoint(HttpMethod.GET, "/api/v1/comments"),
+            new PublicEndpoint(HttpMethod.GET, "/api/v1/comments/*/replies"),
             new PublicEndpoint(HttpMethod.GET, "/api-docs/**"),
             new PublicEndpoint(HttpMethod.GET, "/v3/api-docs/**"),
             new PublicEndpoint(HttpMethod.GET, "/swagger-ui/**")
     );
 
-    public AuthInterceptor(JwtUtil jwtUtil, StringRedisTemplate redisTemplate, UserMapper userMapper) {
+    public AuthInterceptor(JwtUtil jwtUtil,
+                           StringRedisTemplate redisTemplate,
+                           UserMapper userMapper,
+                           AuthStateCache authStateCache) {
         this.jwtUtil = jwtUtil;
         this.redisTemplate = redisTemplate;
         this.userMapper = userMapper;
+        this.authStateCache = authStateCache;
     }
 
     @Override
@@ -75,16 +82,12 @@ public class AuthInterceptor implements HandlerInterceptor {
             Claims claims = jwtUtil.parseToken(token);
             Long userId = jwtUtil.getUserId(claims);
             Long tokenVersion = jwtUtil.getTokenVersion(claims);
-            if (!isTokenVersionValid(userId, tokenVersion)) {
+            AuthStateCache.AuthState state = resolveAuthState(userId, tokenVersion);
+            if (state == null || !state.tokenVersion().equals(tokenVersion)) {
                 writeUnauthorized(response, "Invalid auth token");
                 return false;
             }
-            String role = resolveRole(userId);
-            if (role == null) {
-                writeUnauthorized(response, "Invalid auth token");
-                return false;
-            }
-            CurrentUserContext.setUser(userId, role);
+            CurrentUserContext.setUser(userId, state.role());
             return true;
         } catch (Exception ex) {
             if (isPublic) {
@@ -100,10 +103,29 @@ public class AuthInterceptor implements HandlerInterceptor {
         CurrentUserContext.clear();
     }
 
-    private String resolveRole(Long userId) {
-        if (userId == null) {
+    private AuthStateCache.AuthState resolveAuthState(Long userId, Long tokenVersion) {
+        if (userId == null || tokenVersion == null) {
+            return null;
+        }
+        AuthStateCache.AuthState state = authStateCache.get(userId, () -> loadAuthState(userId, tokenVersion));
+        if (state != null && tokenVersion > state.tokenVersion()) {
+            // token was issued after the cached version was read, so the local entry is stale
+            authStateCache.invalidateLocal(userId);
+            state = authStateCache.get(userId, () -> loadAuthState(userId, tokenVersion));
+        }
+        return state;
+    }
+
+    private AuthStateCache.AuthState loadAuthState(Long userId, Long tokenVersion) {
+        Long currentVersion = loadTokenVersion(userId, tokenVersion);
+        String role = resolveRole(userId);
+        if (role == null) {
             return null;
         }
+        return AuthStateCache.AuthState.of(currentVersion, role);
+    }
+
+    private String resolveRole(Long userId) {
         String key = ROLE_CACHE_PREFIX + userId;
         String role = redisTemplate.opsForValue().get(key);
         if (role != null && !role.isBlank()) {
@@ -120,21 +142,18 @@ public class AuthInterceptor implements HandlerInterceptor {
         return role;
     }
 
-    private boolean isTokenVersionValid(Long userId, Long tokenVersion) {
-        if (userId == null || tokenVersion == null) {
-            return false;
-        }
+    private Long loadTokenVersion(Long userId, Long tokenVersion) {
         String key = TOKEN_VERSION_PREFIX + userId;
         String current = redisTemplate.opsForValue().get(key);
         if (current == null) {
             redisTemplate.opsForValue().set(key, String.valueOf(tokenVersion));
-            return true;
+            return tokenVersion;
         }
         try {
-            return Long.valueOf(current).equals(tokenVersion);
+            return Long.valueOf(current);
         } catch (NumberFormatException ex) {
             redisTemplate.opsForValue().set(key, String.valueOf(tokenVersion));
-            return true;
+            return tokenVersion;
         }
     }
 
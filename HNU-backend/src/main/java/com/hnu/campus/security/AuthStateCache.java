@@ -0,0 +1,127 @@
+package com.hnu.campus.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 进程内的鉴权状态近端缓存：按用户ID缓存 token 版本和角色，稳态下鉴权不访问 Redis。
+ * 踢下线、角色变更时通过 Redis 频道 {@link #CHANNEL} 广播用户ID（批量时以逗号分隔），各实例收到后立即删除本地条目；
+ * 条目另有很短的安全过期时间，消息丢失（如订阅连接断开）时最多在过期后生效。
+ */
+@Slf4j
+@Component
+public class AuthStateCache implements MessageListener {
+    public static final String CHANNEL = "auth:state:invalidate";
+
+    private final ConcurrentHashMap<Long, AuthState> states = new ConcurrentHashMap<>();
+    /**
+     * 每次失效加一；加载前记下的值与写入时不同，说明加载期间发生过失效，结果可能是旧值，不写入
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${jwt.near-cache.ttl-ms:5000}")
+    private long ttlMillis;
+
+    @Value("${jwt.near-cache.max-size:100000}")
+    private int maxSize;
+
+    public AuthStateCache(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 读取用户的鉴权状态，本地没有或已过期时调用 loader 加载；loader 返回 null 时不缓存
+     */
+    public AuthState get(Long userId, Supplier<AuthState> loader) {
+        long now = System.currentTimeMillis();
+        AuthState cached = states.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached;
+        }
+        long generation = invalidations.get();
+        AuthState loaded = loader.get();
+        if (loaded == null) {
+            states.remove(userId);
+            return null;
+        }
+        AuthState state = new AuthState(loaded.tokenVersion(), loaded.role(), now + ttlMillis);
+        if (hasRoom(now)) {
+            states.put(userId, state);
+            if (invalidations.get() != generation) {
+                states.remove(userId, state);
+            }
+        }
+        return state;
+    }
+
+    public void invalidateLocal(Long userId) {
+        invalidations.incrementAndGet();
+        states.remove(userId);
+    }
+
+    /**
+     * 在 Redis 中的 token 版本或角色改变之后调用，通知所有实例（包括本实例）删除该用户的本地条目
+     */
+    public void publishInvalidation(Long userId) {
+        invalidateLocal(userId);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, String.valueOf(userId));
+        } catch (Exception ex) {
+            // 其他实例在安全过期时间后读到新状态
+            log.warn("Publish auth state invalidation for user {} failed: {}", userId, ex.getMessage());
+        }
+    }
+
+    /**
+     * 批量失效，用户ID以逗号拼接后只发布一条消息
+     */
+    public void publishInvalidations(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userIds.forEach(this::invalidateLocal);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, userIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (Exception ex) {
+            log.warn("Publish auth state invalidation for {} users failed: {}", userIds.size(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        for (String userId : body.split(",")) {
+            try {
+                invalidateLocal(Long.valueOf(userId.trim()));
+            } catch (NumberFormatException ex) {
+                log.warn("Ignore malformed auth state invalidation: {}", userId);
+            }
+        }
+    }
+
+    private boolean hasRoom(long now) {
+        if (states.size() < maxSize) {
+            return true;
+        }
+        states.values().removeIf(state -> state.expiresAt() <= now);
+        return states.size() < maxSize;
+    }
+
+    public record AuthState(Long tokenVersion, String role, long expiresAt) {
+        public static AuthState of(Long tokenVersion, String role) {
+            return new AuthState(tokenVersion, role, 0);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.hnu.campus.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,20 +9,39 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
     private final SecretKey secretKey;
     private final long accessExpireSeconds;
     private final String issuer;
+    /**
+     * 解析器不可变且线程安全，构造一次后复用
+     */
+    private final JwtParser parser;
+    /**
+     * 已验签的 claims，key 为 token 的 SHA-256，条目在 token 过期时失效。
+     * 同一个 access token 在有效期内会被反复提交，命中时跳过 HMAC 验签、base64 解码和 JSON 解析
+     */
+    private final ConcurrentHashMap<String, VerifiedClaims> verifiedClaims = new ConcurrentHashMap<>();
+    private final int claimsCacheMaxSize;
 
     public JwtUtil(@Value("${jwt.secret}") String secret,
                    @Value("${jwt.access-expire-seconds:1800}") long accessExpireSeconds,
-                   @Value("${jwt.issuer:hnu-campus}") String issuer) {
+                   @Value("${jwt.issuer:hnu-campus}") String issuer,
+                   @Value("${jwt.claims-cache.max-size:10000}") int claimsCacheMaxSize) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.accessExpireSeconds = accessExpireSeconds;
         this.issuer = issuer;
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+        this.claimsCacheMaxSize = claimsCacheMaxSize;
     }
 
     public String generateToken(Long userId, String role, Long tokenVersion) {
@@ -39,11 +59,25 @@ public class JwtUtil {
     }
 
     public Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        if (claimsCacheMaxSize <= 0) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+        long now = System.currentTimeMillis();
+        String key = digest(token);
+        VerifiedClaims cached = verifiedClaims.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return cached.claims();
+            }
+            verifiedClaims.remove(key, cached);
+        }
+        // 过期或验签失败时抛出异常，不缓存
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        if (expiration != null && hasRoom(now)) {
+            verifiedClaims.put(key, new VerifiedClaims(claims, expiration.getTime()));
+        }
+        return claims;
     }
 
     public Long getUserId(Claims claims) {
@@ -73,4 +107,24 @@ public class JwtUtil {
     public long getAccessExpireSeconds() {
         return accessExpireSeconds;
     }
+
+    private boolean hasRoom(long now) {
+        if (verifiedClaims.size() < claimsCacheMaxSize) {
+            return true;
+        }
+        verifiedClaims.values().removeIf(entry -> entry.expiresAt() <= now);
+        return verifiedClaims.size() < claimsCacheMaxSize;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private record VerifiedClaims(Claims claims, long expiresAt) {
+    }
 }
@@ -0,0 +1,132 @@
+package com.hnu.campus.security;
+
+import com.hnu.campus.exception.BusinessException;
+import com.hnu.campus.exception.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 在专用线程池中执行 BCrypt 哈希和校验，请求线程只等待结果。
+ * 线程池队列满时立即抛出 {@link ServiceBusyException}（503 + Retry-After），不再排队。
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final LongAdder completedTotal = new LongAdder();
+    private final LongAdder rejectedTotal = new LongAdder();
+    private final LongAdder hashNanosTotal = new LongAdder();
+    private final LongAdder waitNanosTotal = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private long reportedCompleted;
+    private long reportedRejected;
+
+    @Value("${auth.password-hash.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    public PasswordHasher(BCryptPasswordEncoder passwordEncoder,
+                          @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor executor) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T run(Supplier<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return hashing.get();
+                } finally {
+                    long finishedAt = System.nanoTime();
+                    record(waitNanosTotal, maxWaitNanos, startedAt - submittedAt);
+                    record(hashNanosTotal, maxHashNanos, finishedAt - startedAt);
+                    completedTotal.increment();
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            rejectedTotal.increment();
+            throw new ServiceBusyException("Server busy, please retry later", retryAfterSeconds);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(503, "Request interrupted");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.password-hash.report-interval-ms:60000}")
+    public void report() {
+        long completed = completedTotal.sum();
+        long rejected = rejectedTotal.sum();
+        long hashes = completed - reportedCompleted;
+        long rejects = rejected - reportedRejected;
+        reportedCompleted = completed;
+        reportedRejected = rejected;
+        long maxHash = maxHashNanos.getAndSet(0);
+        long maxWait = maxWaitNanos.getAndSet(0);
+        if (hashes > 0 || rejects > 0) {
+            log.info("Password hashing: hashes={}, rejected={}, queueDepth={}, active={}, maxHashMs={}, maxWaitMs={}, "
+                            + "avgHashMs={}, avgWaitMs={}",
+                    hashes, rejects, queueDepth(), executor.getActiveCount(),
+                    maxHash / 1_000_000, maxWait / 1_000_000,
+                    averageHashMillis(), averageWaitMillis());
+        }
+    }
+
+    private int queueDepth() {
+        return executor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    /**
+     * 启动以来单次哈希的平均耗时（毫秒）
+     */
+    private double averageHashMillis() {
+        long completed = completedTotal.sum();
+        return completed == 0 ? 0 : hashNanosTotal.sum() / 1_000_000.0 / completed;
+    }
+
+    /**
+     * 启动以来任务在队列中的平均等待时间（毫秒）
+     */
+    private double averageWaitMillis() {
+        long completed = completedTotal.sum();
+        return completed == 0 ? 0 : waitNanosTotal.sum() / 1_000_000.0 / completed;
+    }
+}
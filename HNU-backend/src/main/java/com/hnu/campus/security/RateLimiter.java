@@ -0,0 +1,90 @@
+package com.hnu.campus.security;
+
+import com.hnu.campus.config.RateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis 令牌桶限流。每个 (规则, 用户或IP) 一个哈希 rate:{规则}:{主体}，Lua 脚本原子地补充并扣减令牌。
+ * 被拒绝时脚本返回还需等待的毫秒数，本地记下解封时间；解封前同一主体的请求直接在本地拒绝，不访问 Redis。
+ * 桶内令牌只会被消耗，解封前不可能攒够一个令牌，所以本地拒绝与 Redis 判定一致。
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+    private static final String KEY_PREFIX = "rate:";
+
+    /**
+     * KEYS: 令牌桶；ARGV: 容量, 每毫秒补充数, 当前毫秒。返回 0 表示放行，否则为需等待的毫秒数
+     */
+    private static final DefaultRedisScript<Long> TAKE_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1]) "
+                    + "local rate = tonumber(ARGV[2]) "
+                    + "local now = tonumber(ARGV[3]) "
+                    + "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') "
+                    + "local tokens = tonumber(state[1]) "
+                    + "local ts = tonumber(state[2]) "
+                    + "if tokens == nil then tokens = capacity; ts = now end "
+                    + "if now > ts then tokens = math.min(capacity, tokens + (now - ts) * rate); ts = now end "
+                    + "local ttl = math.ceil(capacity / rate) "
+                    + "if tokens < 1 then "
+                    + "  redis.call('HSET', KEYS[1], 'tokens', tokens, 'ts', ts) "
+                    + "  redis.call('PEXPIRE', KEYS[1], ttl) "
+                    + "  return math.max(1, math.ceil((1 - tokens) / rate)) "
+                    + "end "
+                    + "redis.call('HSET', KEYS[1], 'tokens', tokens - 1, 'ts', ts) "
+                    + "redis.call('PEXPIRE', KEYS[1], ttl) "
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ConcurrentHashMap<String, Long> blockedUntil = new ConcurrentHashMap<>();
+
+    @Value("${rate-limit.local-max-size:100000}")
+    private int localMaxSize;
+
+    public RateLimiter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 尝试取一个令牌，返回 0 表示放行，否则为建议的重试等待毫秒数。Redis 不可用时放行
+     */
+    public long tryAcquire(RateLimitProperties.Rule rule, String subject) {
+        String key = KEY_PREFIX + rule.getName() + ":" + subject;
+        long now = System.currentTimeMillis();
+        Long until = blockedUntil.get(key);
+        if (until != null) {
+            if (until > now) {
+                return until - now;
+            }
+            blockedUntil.remove(key, until);
+        }
+        Long waitMillis;
+        try {
+            waitMillis = redisTemplate.execute(TAKE_SCRIPT, List.of(key),
+                    String.valueOf(rule.getCapacity()),
+                    String.valueOf(rule.getRefillPerSecond() / 1000.0),
+                    String.valueOf(now));
+        } catch (Exception ex) {
+            log.warn("Rate limit check for {} failed, allowing request: {}", key, ex.getMessage());
+            return 0;
+        }
+        if (waitMillis == null || waitMillis <= 0) {
+            return 0;
+        }
+        if (blockedUntil.size() >= localMaxSize) {
+            blockedUntil.values().removeIf(value -> value <= now);
+        }
+        if (blockedUntil.size() < localMaxSize) {
+            blockedUntil.put(key, now + waitMillis);
+        }
+        return waitMillis;
+    }
+}
@@ -0,0 +1,227 @@
+package com.hnu.campus.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 刷新令牌存储：每个用户一个哈希 session:{userId}，字段为令牌ID，值为 "token版本:过期毫秒时间戳"。
+ * 刷新令牌的格式为 "{userId}.{令牌ID}"，由令牌即可定位哈希；签发、轮换、注销、踢下线各为一次 Redis 调用。
+ * 过期字段在签发和轮换时顺带清理，哈希本身的 TTL 随最新签发的令牌延长。
+ * 旧格式的刷新令牌（refresh_token:{令牌} 存 "userId:token版本"）仍可使用一次，刷新时轮换为新格式并删除旧 key。
+ */
+@Component
+public class SessionStore {
+    private static final String SESSION_PREFIX = "session:";
+    private static final String TOKEN_VERSION_PREFIX = "user_token_version:";
+    private static final String ROLE_CACHE_PREFIX = "user_role:";
+    private static final String LEGACY_TOKEN_PREFIX = "refresh_token:";
+    private static final String LEGACY_SET_PREFIX = "refresh_set:";
+
+    private static final String PRUNE_LUA =
+            "local fields = redis.call('HGETALL', KEYS[1]) "
+                    + "for i = 1, #fields, 2 do "
+                    + "  local expiresAt = tonumber(string.match(fields[i + 1], ':(%d+)$')) "
+                    + "  if expiresAt == nil or expiresAt <= now then redis.call('HDEL', KEYS[1], fields[i]) end "
+                    + "end ";
+
+    /**
+     * KEYS: 会话哈希；ARGV: 令牌ID, token版本, 当前毫秒, 有效秒数
+     */
+    private static final DefaultRedisScript<Long> CREATE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[3]) "
+                    + PRUNE_LUA
+                    + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2] .. ':' .. string.format('%d', now + tonumber(ARGV[4]) * 1000)) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * KEYS: 会话哈希, token版本；ARGV: 旧令牌ID, 新令牌ID, 当前毫秒, 有效秒数。
+     * 旧令牌存在、未过期且版本等于当前版本时删除旧令牌、写入新令牌并返回版本，否则删除旧令牌并返回 0
+     */
+    private static final DefaultRedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[3]) "
+                    + "local entry = redis.call('HGET', KEYS[1], ARGV[1]) "
+                    + "if not entry then return 0 end "
+                    + "redis.call('HDEL', KEYS[1], ARGV[1]) "
+                    + "local version, expiresAt = string.match(entry, '^(%d+):(%d+)$') "
+                    + "if version == nil or tonumber(expiresAt) <= now then return 0 end "
+                    + "local current = redis.call('GET', KEYS[2]) "
+                    + "if current == false then redis.call('SET', KEYS[2], '1'); current = '1' end "
+                    + "if current ~= version then return 0 end "
+                    + PRUNE_LUA
+                    + "redis.call('HSET', KEYS[1], ARGV[2], version .. ':' .. string.format('%d', now + tonumber(ARGV[4]) * 1000)) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+                    + "return tonumber(version)",
+            Long.class);
+
+    /**
+     * KEYS: 会话哈希, token版本, 旧令牌 key, 旧令牌集合；ARGV: userId, 旧令牌, 新令牌ID, 当前毫秒, 有效秒数。
+     * 旧令牌存在、属于该用户且版本等于当前版本时写入新令牌并返回版本，否则返回 0；旧令牌无论成功与否都删除
+     */
+    private static final DefaultRedisScript<Long> ROTATE_LEGACY_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[4]) "
+                    + "local entry = redis.call('GET', KEYS[3]) "
+                    + "if not entry then return 0 end "
+                    + "redis.call('DEL', KEYS[3]) "
+                    + "redis.call('SREM', KEYS[4], ARGV[2]) "
+                    + "local userId, version = string.match(entry, '^(%d+):(%d+)$') "
+                    + "if userId ~= ARGV[1] then return 0 end "
+                    + "local current = redis.call('GET', KEYS[2]) "
+                    + "if current == false then redis.call('SET', KEYS[2], '1'); current = '1' end "
+                    + "if current ~= version then return 0 end "
+                    + PRUNE_LUA
+                    + "redis.call('HSET', KEYS[1], ARGV[3], version .. ':' .. string.format('%d', now + tonumber(ARGV[5]) * 1000)) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[5]) "
+                    + "return tonumber(version)",
+            Long.class);
+
+    /**
+     * KEYS: token版本, 角色缓存, 会话哈希。版本加一使已签发的 access token 失效，并删除全部刷新令牌
+     */
+    private static final DefaultRedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('INCR', KEYS[1]) "
+                    + "redis.call('DEL', KEYS[2], KEYS[3]) "
+                    + "return version",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${jwt.refresh-expire-seconds:2592000}")
+    private long refreshExpireSeconds;
+
+    public SessionStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 签发新的刷新令牌
+     */
+    public String create(Long userId, Long tokenVersion) {
+        String tokenId = newTokenId();
+        redisTemplate.execute(CREATE_SCRIPT, List.of(sessionKey(userId)), tokenId,
+                String.valueOf(tokenVersion), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(refreshExpireSeconds));
+        return userId + "." + tokenId;
+    }
+
+    /**
+     * 解析刷新令牌；新格式直接解析，旧格式读取 refresh_token:{令牌} 得到用户ID。无效时返回 null
+     */
+    public ParsedToken resolve(String refreshToken) {
+        ParsedToken parsed = parse(refreshToken);
+        if (parsed != null) {
+            return parsed;
+        }
+        String legacy = redisTemplate.opsForValue().get(LEGACY_TOKEN_PREFIX + refreshToken);
+        if (legacy == null) {
+            return null;
+        }
+        int colon = legacy.indexOf(':');
+        try {
+            return new ParsedToken(Long.valueOf(colon < 0 ? legacy : legacy.substring(0, colon)), refreshToken, true);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * 用旧刷新令牌换新令牌，旧令牌无论成功与否都失效；返回 null 表示旧令牌无效
+     */
+    public Rotated rotate(ParsedToken token) {
+        Long userId = token.userId();
+        String newTokenId = newTokenId();
+        Long version;
+        if (token.legacy()) {
+            version = redisTemplate.execute(ROTATE_LEGACY_SCRIPT,
+                    List.of(sessionKey(userId), TOKEN_VERSION_PREFIX + userId,
+                            LEGACY_TOKEN_PREFIX + token.tokenId(), LEGACY_SET_PREFIX + userId),
+                    String.valueOf(userId), token.tokenId(), newTokenId,
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(refreshExpireSeconds));
+        } else {
+            version = redisTemplate.execute(ROTATE_SCRIPT,
+                    List.of(sessionKey(userId), TOKEN_VERSION_PREFIX + userId),
+                    token.tokenId(), newTokenId, String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(refreshExpireSeconds));
+        }
+        if (version == null || version <= 0) {
+            return null;
+        }
+        return new Rotated(userId + "." + newTokenId, version);
+    }
+
+    public void delete(ParsedToken token) {
+        if (token.legacy()) {
+            redisTemplate.delete(LEGACY_TOKEN_PREFIX + token.tokenId());
+            redisTemplate.opsForSet().remove(LEGACY_SET_PREFIX + token.userId(), token.tokenId());
+            return;
+        }
+        redisTemplate.opsForHash().delete(sessionKey(token.userId()), token.tokenId());
+    }
+
+    /**
+     * 使用户的全部会话失效，返回新的 token 版本
+     */
+    public Long revokeAll(Long userId) {
+        return redisTemplate.execute(REVOKE_SCRIPT, List.of(TOKEN_VERSION_PREFIX + userId,
+                ROLE_CACHE_PREFIX + userId, sessionKey(userId)));
+    }
+
+    /**
+     * 批量踢下线，所有用户的命令在一次管道往返中发出；每个用户先加版本再删会话，与 {@link #revokeAll(Long)} 效果相同
+     */
+    public void revokeAll(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (Long userId : userIds) {
+                stringConnection.incr(TOKEN_VERSION_PREFIX + userId);
+                stringConnection.del(ROLE_CACHE_PREFIX + userId, sessionKey(userId));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 解析 "{userId}.{令牌ID}"，格式不对返回 null
+     */
+    private static ParsedToken parse(String refreshToken) {
+        int dot = refreshToken.indexOf('.');
+        if (dot <= 0 || dot == refreshToken.length() - 1) {
+            return null;
+        }
+        try {
+            return new ParsedToken(Long.valueOf(refreshToken.substring(0, dot)), refreshToken.substring(dot + 1), false);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static String sessionKey(Long userId) {
+        return SESSION_PREFIX + userId;
+    }
+
+    private static String newTokenId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * @param tokenId 新格式为令牌ID，旧格式为整个旧令牌
+     * @param legacy  是否为旧格式令牌
+     */
+    public record ParsedToken(Long userId, String tokenId, boolean legacy) {
+    }
+
+    public record Rotated(String refreshToken, Long tokenVersion) {
+    }
+}
@@ -1,6 +1,11 @@
 package com.hnu.campus.service;
 
 import com.hnu.campus.dto.admin.AuthReviewDTO;
+import com.hnu.campus.dto.admin.BatchAuthReviewDTO;
+import com.hnu.campus.dto.admin.BatchDeleteDTO;
+import com.hnu.campus.dto.admin.BatchJobDTO;
+import com.hnu.campus.dto.admin.BatchUserKickDTO;
+import com.hnu.campus.dto.admin.BatchUserMuteDTO;
 import com.hnu.campus.dto.admin.UserMuteDTO;
 import com.hnu.campus.dto.user.UserInfoDTO;
 
@@ -20,4 +25,16 @@ public interface AdminService {
     List<UserInfoDTO> getAllUsers(Long adminId, Integer page, Integer size);
 
     void kickUser(Long adminId, Long userId);
+
+    BatchJobDTO batchReviewAuth(Long adminId, BatchAuthReviewDTO reviewDTO);
+
+    BatchJobDTO batchMuteUsers(Long adminId, BatchUserMuteDTO muteDTO);
+
+    BatchJobDTO batchKickUsers(Long adminId, BatchUserKickDTO kickDTO);
+
+    BatchJobDTO batchDeletePosts(Long adminId, BatchDeleteDTO deleteDTO);
+
+    BatchJobDTO batchDeleteComments(Long adminId, BatchDeleteDTO deleteDTO);
+
+    BatchJobDTO getBatchJob(Long adminId, String jobId);
 }
@@ -2,8 +2,11 @@ package com.hnu.campus.service;
 
 import com.hnu.campus.dto.comment.CommentCreateDTO;
 import com.hnu.campus.dto.comment.CommentDTO;
+import com.hnu.campus.dto.common.CursorPageDTO;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface CommentService {
     Long createComment(Long userId, CommentCreateDTO createDTO);
@@ -14,5 +17,24 @@ public interface CommentService {
 
     void deleteCommentAsAdmin(Long commentId, Long adminId);
 
-    List<CommentDTO> getCommentTree(Long postId, Long currentUserId);
+    /**
+     * 批量逻辑删除评论：commentIds 不为 null 时删除这些评论，否则删除 userId 的最多 limit 条评论。
+     * 不校验权限，由调用方保证；返回实际删除的条数
+     */
+    int deleteCommentsBatch(Collection<Long> commentIds, Long userId, int limit);
+
+    /**
+     * 根评论游标分页，每条附带回复预览和回复数
+     */
+    CursorPageDTO<CommentDTO> getRootComments(Long postId, String cursor, Integer size, Long currentUserId);
+
+    /**
+     * 展开某条评论的直接回复，游标分页
+     */
+    CursorPageDTO<CommentDTO> getReplies(Long commentId, String cursor, Integer size, Long currentUserId);
+
+    /**
+     * 用户点赞过的评论ID（限定在给定评论范围内），用于在缓存的评论上叠加点赞状态
+     */
+    Set<Long> getLikedCommentIds(Long userId, Collection<Long> commentIds);
 }
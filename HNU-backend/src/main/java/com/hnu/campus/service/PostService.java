@@ -1,5 +1,6 @@
 package com.hnu.campus.service;
 
+import com.hnu.campus.dto.common.CursorPageDTO;
 import com.hnu.campus.dto.post.PostCreateDTO;
 import com.hnu.campus.dto.post.PostDetailDTO;
 import com.hnu.campus.dto.post.PostListDTO;
@@ -13,10 +14,22 @@ public interface PostService {
 
     List<PostListDTO> getPostList(Integer categoryId, Integer page, Integer size);
 
+    CursorPageDTO<PostListDTO> getPostListByCursor(Integer categoryId, String cursor, Integer size);
+
     List<PostListDTO> searchPosts(String keyword, Integer categoryId, Integer page, Integer size);
 
     List<PostListDTO> getHotPosts();
 
+    /**
+     * 帖子被删除后从热榜及热榜快照中移除，并清除 Redis 中的点赞状态
+     */
+    void evictHotPost(Long postId);
+
+    /**
+     * 滑动窗口热榜：按最近 windowHours 小时的浏览/点赞计算，categoryId 为空时统计全站
+     */
+    List<PostListDTO> getTrendingPosts(Integer categoryId, Integer windowHours);
+
     PostDetailDTO getPostDetail(Long postId, Long currentUserId);
 
     boolean toggleLike(Long postId, Long userId);
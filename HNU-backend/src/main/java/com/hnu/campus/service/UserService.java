@@ -1,5 +1,6 @@
 package com.hnu.campus.service;
 
+import com.hnu.campus.dto.common.CursorPageDTO;
 import com.hnu.campus.dto.post.PostListDTO;
 import com.hnu.campus.dto.user.PasswordUpdateDTO;
 import com.hnu.campus.dto.user.UserInfoDTO;
@@ -15,4 +16,6 @@ public interface UserService {
     void changePassword(Long userId, PasswordUpdateDTO passwordUpdateDTO);
 
     List<PostListDTO> getUserPosts(Long userId, Integer page, Integer size);
+
+    CursorPageDTO<PostListDTO> getUserPostsByCursor(Long userId, String cursor, Integer size);
 }
@@ -2,60 +2,83 @@ package com.hnu.campus.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hnu.campus.cache.PostDetailCache;
+import com.hnu.campus.cache.PostTimelineCache;
 import com.hnu.campus.dto.admin.AuthReviewDTO;
+import com.hnu.campus.dto.admin.BatchAuthReviewDTO;
+import com.hnu.campus.dto.admin.BatchDeleteDTO;
+import com.hnu.campus.dto.admin.BatchJobDTO;
+import com.hnu.campus.dto.admin.BatchUserKickDTO;
+import com.hnu.campus.dto.admin.BatchUserMuteDTO;
 import com.hnu.campus.dto.admin.UserMuteDTO;
 import com.hnu.campus.dto.user.UserInfoDTO;
+import com.hnu.campus.entity.Comment;
 import com.hnu.campus.entity.Post;
 import com.hnu.campus.entity.User;
 import com.hnu.campus.enums.AuthStatus;
+import com.hnu.campus.enums.PostStatus;
 import com.hnu.campus.enums.UserRole;
 import com.hnu.campus.exception.BusinessException;
+import com.hnu.campus.mapper.CommentMapper;
 import com.hnu.campus.mapper.PostMapper;
 import com.hnu.campus.mapper.UserMapper;
+import com.hnu.campus.search.PostSearchEngine;
+import com.hnu.campus.security.AuthStateCache;
 import com.hnu.campus.security.CurrentUserContext;
+import com.hnu.campus.security.SessionStore;
 import com.hnu.campus.service.AdminService;
 import com.hnu.campus.service.CommentService;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import com.hnu.campus.service.PostService;
+import com.hnu.campus.task.AdminBatchJobs;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 
 @Service
 public class AdminServiceImpl implements AdminService {
-    private static final String TOKEN_VERSION_PREFIX = "user_token_version:";
-    private static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
-    private static final String REFRESH_SET_PREFIX = "refresh_set:";
-    private static final String ROLE_CACHE_PREFIX = "user_role:";
-
     private final UserMapper userMapper;
     private final PostMapper postMapper;
+    private final CommentMapper commentMapper;
     private final CommentService commentService;
-    private final StringRedisTemplate redisTemplate;
+    private final PostService postService;
+    private final SessionStore sessionStore;
+    private final PostTimelineCache postTimelineCache;
+    private final PostDetailCache postDetailCache;
+    private final PostSearchEngine postSearchEngine;
+    private final AuthStateCache authStateCache;
+    private final AdminBatchJobs adminBatchJobs;
 
     public AdminServiceImpl(UserMapper userMapper,
                             PostMapper postMapper,
+                            CommentMapper commentMapper,
                             CommentService commentService,
-                            StringRedisTemplate redisTemplate) {
+                            PostService postService,
+                            SessionStore sessionStore,
+                            PostTimelineCache postTimelineCache,
+                            PostDetailCache postDetailCache,
+                            ObjectProvider<PostSearchEngine> postSearchEngine,
+                            AuthStateCache authStateCache,
+                            AdminBatchJobs adminBatchJobs) {
         this.userMapper = userMapper;
         this.postMapper = postMapper;
+        this.commentMapper = commentMapper;
         this.commentService = commentService;
-        this.redisTemplate = redisTemplate;
+        this.postService = postService;
+        this.sessionStore = sessionStore;
+        this.postTimelineCache = postTimelineCache;
+        this.postDetailCache = postDetailCache;
+        this.postSearchEngine = postSearchEngine.getIfAvailable();
+        this.authStateCache = authStateCache;
+        this.adminBatchJobs = adminBatchJobs;
     }
 
     @Override
     public void reviewAuth(Long adminId, AuthReviewDTO reviewDTO) {
         ensureAdmin();
-        AuthStatus status;
-        try {
-            status = AuthStatus.fromCode(reviewDTO.getAuthStatus());
-        } catch (IllegalArgumentException ex) {
-            throw new BusinessException(400, "Invalid auth status");
-        }
-        if (status == AuthStatus.PENDING) {
-            throw new BusinessException(400, "Auth status cannot be pending");
-        }
+        AuthStatus status = parseReviewStatus(reviewDTO.getAuthStatus());
         User user = userMapper.selectById(reviewDTO.getUserId());
         if (user == null) {
             throw new BusinessException(404, "User not found");
@@ -63,6 +86,10 @@ public class AdminServiceImpl implements AdminService {
         user.setAuthStatus(status.getCode());
         user.setUpdateTime(LocalDateTime.now());
         userMapper.updateById(user);
+        if (status == AuthStatus.REJECTED) {
+            // 被拒绝的用户不能再登录，已有会话一并失效
+            revokeUserSessions(user.getId());
+        }
     }
 
     @Override
@@ -75,6 +102,12 @@ public class AdminServiceImpl implements AdminService {
         post.setStatus("deleted");
         post.setUpdateTime(LocalDateTime.now());
         postMapper.updateById(post);
+        postTimelineCache.onPostRemoved(postId, post.getCategoryId());
+        postService.evictHotPost(postId);
+        postDetailCache.bumpVersion(postId);
+        if (postSearchEngine != null) {
+            postSearchEngine.remove(postId);
+        }
     }
 
     @Override
@@ -157,6 +190,144 @@ public class AdminServiceImpl implements AdminService {
         revokeUserSessions(userId);
     }
 
+    @Override
+    public BatchJobDTO batchReviewAuth(Long adminId, BatchAuthReviewDTO reviewDTO) {
+        ensureAdmin();
+        String status = parseReviewStatus(reviewDTO.getAuthStatus()).getCode();
+        // 被拒绝的用户不能再登录，已有会话一并失效
+        boolean revoke = AuthStatus.REJECTED.getCode().equals(status);
+        if (reviewDTO.getUserIds() != null) {
+            List<Long> userIds = AdminBatchJobs.distinctIds(reviewDTO.getUserIds());
+            return adminBatchJobs.run("auth-review", userIds.size(), adminBatchJobs.overIds(userIds,
+                    chunk -> afterReview(userMapper.updateAuthStatusBatch(chunk, status, null, 0), revoke)));
+        }
+        LocalDateTime createdBefore = reviewDTO.getCreatedBefore();
+        long total = userMapper.selectCount(new LambdaQueryWrapper<User>()
+                .eq(User::getAuthStatus, AuthStatus.PENDING.getCode())
+                .le(createdBefore != null, User::getCreateTime, createdBefore));
+        int limit = adminBatchJobs.chunkSize();
+        return adminBatchJobs.run("auth-review", total, adminBatchJobs.untilExhausted(
+                () -> afterReview(userMapper.updateAuthStatusBatch(null, status, createdBefore, limit), revoke)));
+    }
+
+    @Override
+    public BatchJobDTO batchMuteUsers(Long adminId, BatchUserMuteDTO muteDTO) {
+        ensureAdmin();
+        List<Long> userIds = AdminBatchJobs.distinctIds(muteDTO.getUserIds());
+        if (adminId != null && userIds.contains(adminId)) {
+            throw new BusinessException(400, "Cannot mute self");
+        }
+        boolean isMuted = muteDTO.getIsMuted();
+        boolean kick = Boolean.TRUE.equals(muteDTO.getKick());
+        return adminBatchJobs.run("user-mute", userIds.size(), adminBatchJobs.overIds(userIds, chunk -> {
+            List<Long> changed = userMapper.updateMutedBatch(chunk, isMuted);
+            if (kick) {
+                revokeUserSessions(chunk);
+            }
+            return changed.size();
+        }));
+    }
+
+    @Override
+    public BatchJobDTO batchKickUsers(Long adminId, BatchUserKickDTO kickDTO) {
+        ensureAdmin();
+        List<Long> userIds = AdminBatchJobs.distinctIds(kickDTO.getUserIds());
+        if (adminId != null && userIds.contains(adminId)) {
+            throw new BusinessException(400, "Cannot kick self");
+        }
+        return adminBatchJobs.run("user-kick", userIds.size(), adminBatchJobs.overIds(userIds, chunk -> {
+            revokeUserSessions(chunk);
+            return chunk.size();
+        }));
+    }
+
+    @Override
+    public BatchJobDTO batchDeletePosts(Long adminId, BatchDeleteDTO deleteDTO) {
+        ensureAdmin();
+        validateBatchDelete(deleteDTO);
+        if (deleteDTO.getIds() != null) {
+            List<Long> postIds = AdminBatchJobs.distinctIds(deleteDTO.getIds());
+            return adminBatchJobs.run("post-delete", postIds.size(), adminBatchJobs.overIds(postIds,
+                    chunk -> afterPostsDeleted(postMapper.markDeletedBatch(chunk, null, 0))));
+        }
+        Long authorId = deleteDTO.getUserId();
+        long total = postMapper.selectCount(new LambdaQueryWrapper<Post>()
+                .eq(Post::getAuthorId, authorId)
+                .eq(Post::getStatus, PostStatus.NORMAL.getCode()));
+        int limit = adminBatchJobs.chunkSize();
+        return adminBatchJobs.run("post-delete", total, adminBatchJobs.untilExhausted(
+                () -> afterPostsDeleted(postMapper.markDeletedBatch(null, authorId, limit))));
+    }
+
+    @Override
+    public BatchJobDTO batchDeleteComments(Long adminId, BatchDeleteDTO deleteDTO) {
+        ensureAdmin();
+        validateBatchDelete(deleteDTO);
+        if (deleteDTO.getIds() != null) {
+            List<Long> commentIds = AdminBatchJobs.distinctIds(deleteDTO.getIds());
+            return adminBatchJobs.run("comment-delete", commentIds.size(), adminBatchJobs.overIds(commentIds,
+                    chunk -> commentService.deleteCommentsBatch(chunk, null, 0)));
+        }
+        Long userId = deleteDTO.getUserId();
+        long total = commentMapper.selectCount(new LambdaQueryWrapper<Comment>()
+                .eq(Comment::getUserId, userId)
+                .eq(Comment::getStatus, "normal"));
+        int limit = adminBatchJobs.chunkSize();
+        return adminBatchJobs.run("comment-delete", total, adminBatchJobs.untilExhausted(
+                () -> commentService.deleteCommentsBatch(null, userId, limit)));
+    }
+
+    @Override
+    public BatchJobDTO getBatchJob(Long adminId, String jobId) {
+        ensureAdmin();
+        return adminBatchJobs.get(jobId);
+    }
+
+    private AuthStatus parseReviewStatus(String code) {
+        AuthStatus status;
+        try {
+            status = AuthStatus.fromCode(code);
+        } catch (IllegalArgumentException ex) {
+            throw new BusinessException(400, "Invalid auth status");
+        }
+        if (status == AuthStatus.PENDING) {
+            throw new BusinessException(400, "Auth status cannot be pending");
+        }
+        return status;
+    }
+
+    private void validateBatchDelete(BatchDeleteDTO deleteDTO) {
+        boolean hasIds = deleteDTO.getIds() != null;
+        boolean hasUser = deleteDTO.getUserId() != null;
+        if (hasIds == hasUser) {
+            throw new BusinessException(400, "Exactly one of ids or userId is required");
+        }
+        if (hasIds && deleteDTO.getIds().isEmpty()) {
+            throw new BusinessException(400, "IDs required");
+        }
+    }
+
+    private int afterReview(List<Long> changedUserIds, boolean revoke) {
+        if (revoke) {
+            revokeUserSessions(changedUserIds);
+        }
+        return changedUserIds.size();
+    }
+
+    private int afterPostsDeleted(List<Post> posts) {
+        for (Post post : posts) {
+            postTimelineCache.onPostRemoved(post.getId(), post.getCategoryId());
+            postService.evictHotPost(post.getId());
+            if (postSearchEngine != null) {
+                postSearchEngine.remove(post.getId());
+            }
+        }
+        if (!posts.isEmpty()) {
+            postDetailCache.bumpVersions(posts.stream().map(Post::getId).toList());
+        }
+        return posts.size();
+    }
+
     private void ensureAdmin() {
         String role = CurrentUserContext.getRole();
         if (!UserRole.ADMIN.getCode().equals(role)) {
@@ -165,17 +336,15 @@ public class AdminServiceImpl implements AdminService {
     }
 
     private void revokeUserSessions(Long userId) {
-        String versionKey = TOKEN_VERSION_PREFIX + userId;
-        redisTemplate.opsForValue().increment(versionKey);
-        redisTemplate.delete(ROLE_CACHE_PREFIX + userId);
-
-        String setKey = REFRESH_SET_PREFIX + userId;
-        Set<String> tokens = redisTemplate.opsForSet().members(setKey);
-        if (tokens != null) {
-            for (String token : tokens) {
-                redisTemplate.delete(REFRESH_TOKEN_PREFIX + token);
-            }
+        sessionStore.revokeAll(userId);
+        authStateCache.publishInvalidation(userId);
+    }
+
+    private void revokeUserSessions(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
         }
-        redisTemplate.delete(setKey);
+        sessionStore.revokeAll(userIds);
+        authStateCache.publishInvalidations(userIds);
     }
 }
@@ -10,46 +10,44 @@ import com.hnu.campus.enums.UserRole;
 import com.hnu.campus.exception.BusinessException;
 import com.hnu.campus.mapper.UserMapper;
 import com.hnu.campus.security.JwtUtil;
+import com.hnu.campus.security.PasswordHasher;
+import com.hnu.campus.security.SessionStore;
 import com.hnu.campus.service.AuthService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 @Service
 public class AuthServiceImpl implements AuthService {
     private static final String VERIFY_CODE_PREFIX = "verify_code:";
-    private static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
     private static final String ROLE_CACHE_PREFIX = "user_role:";
     private static final String TOKEN_VERSION_PREFIX = "user_token_version:";
-    private static final String REFRESH_SET_PREFIX = "refresh_set:";
 
     private final UserMapper userMapper;
     private final StringRedisTemplate redisTemplate;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
-
-    @Value("${jwt.refresh-expire-seconds:2592000}")
-    private long refreshExpireSeconds;
+    private final SessionStore sessionStore;
 
     @Value("${jwt.role-cache-seconds:1800}")
     private long roleCacheSeconds;
 
     public AuthServiceImpl(UserMapper userMapper,
                            StringRedisTemplate redisTemplate,
-                           BCryptPasswordEncoder passwordEncoder,
-                           JwtUtil jwtUtil) {
+                           PasswordHasher passwordHasher,
+                           JwtUtil jwtUtil,
+                           SessionStore sessionStore) {
         this.userMapper = userMapper;
         this.redisTemplate = redisTemplate;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtUtil = jwtUtil;
+        this.sessionStore = sessionStore;
     }
 
     @Override
@@ -69,7 +67,7 @@ public class AuthServiceImpl implements AuthService {
         User user = User.builder()
                 .phone(phone)
                 .nickname(registerDTO.getNickname())
-                .password(passwordEncoder.encode(registerDTO.getPassword()))
+                .password(passwordHasher.encode(registerDTO.getPassword()))
                 .studentId(registerDTO.getStudentId())
                 .campusCardUrl(registerDTO.getCampusCardUrl())
                 .authStatus(AuthStatus.PENDING.getCode())
@@ -96,7 +94,7 @@ public class AuthServiceImpl implements AuthService {
         if (user == null) {
             throw new BusinessException(400, "Phone or password is incorrect");
         }
-        if (!passwordEncoder.matches(loginDTO.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(loginDTO.getPassword(), user.getPassword())) {
             throw new BusinessException(400, "Phone or password is incorrect");
         }
         if (!AuthStatus.APPROVED.getCode().equals(user.getAuthStatus())) {
@@ -105,8 +103,7 @@ public class AuthServiceImpl implements AuthService {
 
         Long tokenVersion = getOrInitTokenVersion(user.getId());
         String accessToken = jwtUtil.generateToken(user.getId(), user.getRole(), tokenVersion);
-        String refreshToken = generateRefreshToken();
-        storeRefreshToken(refreshToken, user.getId(), tokenVersion);
+        String refreshToken = sessionStore.create(user.getId(), tokenVersion);
         cacheUserRole(user.getId(), user.getRole());
 
         LoginResponseDTO response = new LoginResponseDTO();
@@ -125,23 +122,11 @@ public class AuthServiceImpl implements AuthService {
         if (refreshToken == null || refreshToken.isBlank()) {
             throw new BusinessException(401, "Missing refresh token");
         }
-        String key = REFRESH_TOKEN_PREFIX + refreshToken;
-        String tokenValue = redisTemplate.opsForValue().get(key);
-        if (tokenValue == null) {
-            throw new BusinessException(401, "Login expired, please re-login");
-        }
-        Long userId;
-        Long tokenVersionFromRefresh;
-        String[] parts = tokenValue.split(":");
-        if (parts.length != 2) {
-            throw new BusinessException(401, "Login expired, please re-login");
-        }
-        try {
-            userId = Long.valueOf(parts[0]);
-            tokenVersionFromRefresh = Long.valueOf(parts[1]);
-        } catch (NumberFormatException ex) {
+        SessionStore.ParsedToken parsed = sessionStore.resolve(refreshToken);
+        if (parsed == null) {
             throw new BusinessException(401, "Login expired, please re-login");
         }
+        Long userId = parsed.userId();
 
         User user = userMapper.selectById(userId);
         if (user == null) {
@@ -151,20 +136,17 @@ public class AuthServiceImpl implements AuthService {
             throw new BusinessException(403, "Account not approved");
         }
 
-        Long tokenVersion = getOrInitTokenVersion(userId);
-        if (!tokenVersion.equals(tokenVersionFromRefresh)) {
+        SessionStore.Rotated rotated = sessionStore.rotate(parsed);
+        if (rotated == null) {
             throw new BusinessException(401, "Login expired, please re-login");
         }
 
-        String accessToken = jwtUtil.generateToken(userId, user.getRole(), tokenVersion);
-        String newRefreshToken = generateRefreshToken();
-        deleteRefreshToken(userId, refreshToken);
-        storeRefreshToken(newRefreshToken, userId, tokenVersion);
+        String accessToken = jwtUtil.generateToken(userId, user.getRole(), rotated.tokenVersion());
         cacheUserRole(userId, user.getRole());
 
         LoginResponseDTO response = new LoginResponseDTO();
         response.setToken(accessToken);
-        response.setRefreshToken(newRefreshToken);
+        response.setRefreshToken(rotated.refreshToken());
         response.setExpiresIn(jwtUtil.getAccessExpireSeconds());
         response.setUserId(userId);
         response.setNickname(user.getNickname());
@@ -185,38 +167,11 @@ public class AuthServiceImpl implements AuthService {
         if (refreshToken == null || refreshToken.isBlank()) {
             return;
         }
-        String key = REFRESH_TOKEN_PREFIX + refreshToken;
-        String tokenValue = redisTemplate.opsForValue().get(key);
-        if (tokenValue == null) {
-            return;
-        }
-        String[] parts = tokenValue.split(":");
-        if (parts.length != 2) {
-            return;
-        }
-        Long userId;
-        try {
-            userId = Long.valueOf(parts[0]);
-        } catch (NumberFormatException ex) {
+        SessionStore.ParsedToken parsed = sessionStore.resolve(refreshToken);
+        if (parsed == null) {
             return;
         }
-        deleteRefreshToken(userId, refreshToken);
-    }
-
-    private void storeRefreshToken(String refreshToken, Long userId, Long tokenVersion) {
-        String key = REFRESH_TOKEN_PREFIX + refreshToken;
-        String value = userId + ":" + tokenVersion;
-        redisTemplate.opsForValue().set(key, value, Duration.ofSeconds(refreshExpireSeconds));
-        String setKey = REFRESH_SET_PREFIX + userId;
-        redisTemplate.opsForSet().add(setKey, refreshToken);
-        redisTemplate.expire(setKey, Duration.ofSeconds(refreshExpireSeconds));
-    }
-
-    private void deleteRefreshToken(Long userId, String refreshToken) {
-        String key = REFRESH_TOKEN_PREFIX + refreshToken;
-        redisTemplate.delete(key);
-        String setKey = REFRESH_SET_PREFIX + userId;
-        redisTemplate.opsForSet().remove(setKey, refreshToken);
+        sessionStore.delete(parsed);
     }
 
     private void cacheUserRole(Long userId, String role) {
@@ -241,8 +196,4 @@ public class AuthServiceImpl implements AuthService {
             return 1L;
         }
     }
-
-    private String generateRefreshToken() {
-        return UUID.randomUUID().toString().replace("-", "");
-    }
 }
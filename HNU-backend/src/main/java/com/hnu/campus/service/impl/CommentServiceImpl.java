@@ -1,12 +1,15 @@
 package com.hnu.campus.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.hnu.campus.cache.CommentCountBuffer;
+import com.hnu.campus.cache.LikeCountShards;
+import com.hnu.campus.cache.PostDetailCache;
+import com.hnu.campus.cache.UserLikeIndex;
 import com.hnu.campus.dto.comment.CommentCreateDTO;
 import com.hnu.campus.dto.comment.CommentDTO;
+import com.hnu.campus.dto.common.CursorPageDTO;
 import com.hnu.campus.entity.Comment;
-import com.hnu.campus.entity.CommentLike;
 import com.hnu.campus.entity.Post;
 import com.hnu.campus.entity.User;
 import com.hnu.campus.exception.BusinessException;
@@ -17,9 +20,9 @@ import com.hnu.campus.mapper.UserMapper;
 import com.hnu.campus.security.CurrentUserContext;
 import com.hnu.campus.enums.UserRole;
 import com.hnu.campus.service.CommentService;
-import org.springframework.dao.DataIntegrityViolationException;
+import com.hnu.campus.util.TimeIdCursor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -28,21 +31,40 @@ import java.util.stream.Collectors;
 @Service
 public class CommentServiceImpl implements CommentService {
     private static final String DELETED_PLACEHOLDER = "该评论用户已自行删除";
+    private static final int MAX_COMMENT_PAGE_SIZE = 50;
     private final CommentMapper commentMapper;
     private final CommentLikeMapper commentLikeMapper;
     private final UserMapper userMapper;
     private final PostMapper postMapper;
+    private final PostDetailCache postDetailCache;
+    private final CommentCountBuffer commentCountBuffer;
+    private final UserLikeIndex userLikeIndex;
+    private final LikeCountShards likeCountShards;
 
     public CommentServiceImpl(CommentMapper commentMapper,
                               CommentLikeMapper commentLikeMapper,
                               UserMapper userMapper,
-                              PostMapper postMapper) {
+                              PostMapper postMapper,
+                              PostDetailCache postDetailCache,
+                              CommentCountBuffer commentCountBuffer,
+                              UserLikeIndex userLikeIndex,
+                              LikeCountShards likeCountShards) {
         this.commentMapper = commentMapper;
         this.commentLikeMapper = commentLikeMapper;
         this.userMapper = userMapper;
         this.postMapper = postMapper;
+        this.postDetailCache = postDetailCache;
+        this.commentCountBuffer = commentCountBuffer;
+        this.userLikeIndex = userLikeIndex;
+        this.likeCountShards = likeCountShards;
     }
 
+    /**
+     * 评论分页中每条评论附带的回复预览条数
+     */
+    @Value("${post.comment.reply-preview-size:3}")
+    private int replyPreviewSize;
+
     @Override
     public Long createComment(Long userId, CommentCreateDTO createDTO) {
         User user = userMapper.selectById(userId);
@@ -71,51 +93,44 @@ public class CommentServiceImpl implements CommentService {
                 .content(createDTO.getContent())
                 .parentId(createDTO.getParentId())
                 .likeCount(0)
+                .replyCount(0)
                 .status("normal")
                 .createTime(LocalDateTime.now())
                 .updateTime(LocalDateTime.now())
                 .build();
         commentMapper.insert(comment);
+        commentCountBuffer.recordComment(comment.getPostId(), 1);
+        if (comment.getParentId() != null) {
+            commentCountBuffer.recordReply(comment.getParentId(), 1);
+        }
+        postDetailCache.bumpVersion(comment.getPostId());
         return comment.getId();
     }
 
     @Override
-    @Transactional
     public boolean toggleLike(Long commentId, Long userId) {
-        Comment comment = commentMapper.selectById(commentId);
-        if (comment == null || !"normal".equals(comment.getStatus())) {
+        // 热点评论的点赞计数写入分片，避免所有点赞者排队等同一行的行锁
+        boolean sharded = likeCountShards.recordAndCheckHot(LikeCountShards.COMMENT, commentId);
+        Map<String, Object> result = sharded
+                ? commentLikeMapper.toggleSharded(commentId, userId, likeCountShards.randomShard())
+                : commentLikeMapper.toggle(commentId, userId);
+        int state = result == null || result.get("liked") == null
+                ? -1 : ((Number) result.get("liked")).intValue();
+        if (state < 0) {
             throw new BusinessException(404, "评论不存在");
         }
-        try {
-            CommentLike like = CommentLike.builder()
-                    .commentId(commentId)
-                    .userId(userId)
-                    .createTime(LocalDateTime.now())
-                    .build();
-            commentLikeMapper.insert(like);
-
-            UpdateWrapper<Comment> incWrapper = new UpdateWrapper<>();
-            incWrapper.eq("id", commentId)
-                    .eq("status", "normal")
-                    .setSql("like_count = like_count + 1")
-                    .set("update_time", LocalDateTime.now());
-            commentMapper.update(null, incWrapper);
+        if (state == 2) {
+            // 并发请求已写入点赞，本次没有改动
             return true;
-        } catch (DataIntegrityViolationException ex) {
-            int deleted = commentLikeMapper.delete(new QueryWrapper<CommentLike>()
-                    .eq("comment_id", commentId)
-                    .eq("user_id", userId));
-            if (deleted > 0) {
-                UpdateWrapper<Comment> decWrapper = new UpdateWrapper<>();
-                decWrapper.eq("id", commentId)
-                        .eq("status", "normal")
-                        .setSql("like_count = GREATEST(like_count - 1, 0)")
-                        .set("update_time", LocalDateTime.now());
-                commentMapper.update(null, decWrapper);
-                return false;
-            }
-            return false;
         }
+        boolean liked = state == 1;
+        userLikeIndex.recordCommentLike(userId, commentId, liked);
+        Object postId = result.get("post_id");
+        // 分片的增量在合并时统一递增详情缓存版本，热点期间不逐次失效
+        if (postId != null && !sharded) {
+            postDetailCache.bumpVersion(((Number) postId).longValue());
+        }
+        return liked;
     }
 
     @Override
@@ -127,12 +142,7 @@ public class CommentServiceImpl implements CommentService {
         if (!Objects.equals(comment.getUserId(), userId)) {
             throw new BusinessException(403, "无权限删除该评论");
         }
-        UpdateWrapper<Comment> updateWrapper = new UpdateWrapper<>();
-        updateWrapper.eq("id", commentId)
-                .set("status", "deleted")
-                .set("content", DELETED_PLACEHOLDER)
-                .set("update_time", LocalDateTime.now());
-        commentMapper.update(null, updateWrapper);
+        markDeleted(comment);
     }
 
     @Override
@@ -145,80 +155,152 @@ public class CommentServiceImpl implements CommentService {
         if (comment == null) {
             throw new BusinessException(404, "评论不存在");
         }
+        markDeleted(comment);
+    }
+
+    @Override
+    public int deleteCommentsBatch(Collection<Long> commentIds, Long userId, int limit) {
+        List<Long> postIds = commentMapper.markDeletedBatch(commentIds, userId, DELETED_PLACEHOLDER, limit);
+        Map<Long, Long> deletedPerPost = postIds.stream()
+                .collect(Collectors.groupingBy(postId -> postId, Collectors.counting()));
+        deletedPerPost.forEach((postId, count) -> commentCountBuffer.recordComment(postId, -count));
+        if (!deletedPerPost.isEmpty()) {
+            postDetailCache.bumpVersions(deletedPerPost.keySet());
+        }
+        return postIds.size();
+    }
+
+    /**
+     * 逻辑删除评论；只有从正常变为删除的那次更新才扣减帖子评论数，重复删除不会多扣。
+     * 回复数包含已删除的占位回复，不随删除变化。
+     */
+    private void markDeleted(Comment comment) {
         UpdateWrapper<Comment> updateWrapper = new UpdateWrapper<>();
-        updateWrapper.eq("id", commentId)
+        updateWrapper.eq("id", comment.getId())
+                .eq("status", "normal")
                 .set("status", "deleted")
                 .set("content", DELETED_PLACEHOLDER)
                 .set("update_time", LocalDateTime.now());
-        commentMapper.update(null, updateWrapper);
+        if (commentMapper.update(null, updateWrapper) > 0) {
+            commentCountBuffer.recordComment(comment.getPostId(), -1);
+        }
+        postDetailCache.bumpVersion(comment.getPostId());
     }
 
     @Override
-    public List<CommentDTO> getCommentTree(Long postId, Long currentUserId) {
-        List<Comment> comments = commentMapper.selectList(new LambdaQueryWrapper<Comment>()
+    public Set<Long> getLikedCommentIds(Long userId, Collection<Long> commentIds) {
+        return userLikeIndex.likedCommentIds(userId, commentIds);
+    }
+
+    @Override
+    public CursorPageDTO<CommentDTO> getRootComments(Long postId, String cursor, Integer size, Long currentUserId) {
+        LambdaQueryWrapper<Comment> wrapper = new LambdaQueryWrapper<Comment>()
                 .eq(Comment::getPostId, postId)
-                .orderByAsc(Comment::getCreateTime));
+                .isNull(Comment::getParentId);
+        return pageComments(wrapper, TimeIdCursor.decode(cursor), normalizePageSize(size), null, currentUserId);
+    }
+
+    @Override
+    public CursorPageDTO<CommentDTO> getReplies(Long commentId, String cursor, Integer size, Long currentUserId) {
+        Comment parent = commentMapper.selectById(commentId);
+        if (parent == null) {
+            throw new BusinessException(404, "评论不存在");
+        }
+        LambdaQueryWrapper<Comment> wrapper = new LambdaQueryWrapper<Comment>()
+                .eq(Comment::getParentId, commentId);
+        return pageComments(wrapper, TimeIdCursor.decode(cursor), normalizePageSize(size), parent, currentUserId);
+    }
+
+    /**
+     * 按 (create_time, id) 正序做 keyset 分页，parent 不为空时表示分页的是它的直接回复
+     */
+    private CursorPageDTO<CommentDTO> pageComments(LambdaQueryWrapper<Comment> wrapper, TimeIdCursor after,
+                                                   int limit, Comment parent, Long currentUserId) {
+        TimeIdCursor.applyAsc(wrapper, after, Comment::getCreateTime, Comment::getId, limit);
+        TimeIdCursor.Slice<Comment> slice = TimeIdCursor.slice(commentMapper.selectList(wrapper), limit,
+                Comment::getCreateTime, Comment::getId);
+        return new CursorPageDTO<>(assembleComments(slice.items(), parent, currentUserId),
+                slice.nextCursor(), slice.hasMore());
+    }
+
+    /**
+     * 组装一页评论：附带每条评论最早的几条回复预览，回复数取自 reply_count 列，用户和点赞状态只查本页涉及的评论
+     */
+    private List<CommentDTO> assembleComments(List<Comment> comments, Comment parent, Long currentUserId) {
         if (comments.isEmpty()) {
             return List.of();
         }
+        List<Long> pageIds = comments.stream().map(Comment::getId).toList();
+        List<Comment> previews = replyPreviewSize > 0
+                ? commentMapper.selectReplyPreviews(pageIds, replyPreviewSize)
+                : List.of();
+        List<Comment> all = new ArrayList<>(comments);
+        all.addAll(previews);
+        List<Long> allIds = all.stream().map(Comment::getId).toList();
 
-        Set<Long> userIds = comments.stream()
+        Set<Long> userIds = all.stream()
                 .map(Comment::getUserId)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
+        if (parent != null && parent.getUserId() != null) {
+            userIds.add(parent.getUserId());
+        }
         Map<Long, User> userMap = userIds.isEmpty()
                 ? Collections.emptyMap()
                 : userMapper.selectBatchIds(userIds).stream()
                 .collect(Collectors.toMap(User::getId, item -> item));
+        Set<Long> likedCommentIds = getLikedCommentIds(currentUserId, allIds);
+        Map<Long, Long> pendingLikes = likeCountShards.pendingDeltas(LikeCountShards.COMMENT, allIds);
 
-        Set<Long> likedCommentIds = Collections.emptySet();
-        if (currentUserId != null) {
-            List<Long> commentIds = comments.stream().map(Comment::getId).toList();
-            if (!commentIds.isEmpty()) {
-                List<CommentLike> likes = commentLikeMapper.selectList(new QueryWrapper<CommentLike>()
-                        .eq("user_id", currentUserId)
-                        .in("comment_id", commentIds));
-                likedCommentIds = likes.stream().map(CommentLike::getCommentId).collect(Collectors.toSet());
-            }
-        }
-
-        Map<Long, CommentDTO> dtoMap = new HashMap<>();
+        String parentNickname = parent == null ? null : nickname(userMap, parent.getUserId());
+        Map<Long, CommentDTO> dtoMap = new LinkedHashMap<>();
         for (Comment comment : comments) {
-            CommentDTO dto = new CommentDTO();
-            dto.setId(comment.getId());
-            dto.setUserId(comment.getUserId());
-            User user = userMap.get(comment.getUserId());
-            dto.setUserNickname(user == null ? null : user.getNickname());
-            if (!"normal".equals(comment.getStatus())) {
-                dto.setContent(DELETED_PLACEHOLDER);
-            } else {
-                dto.setContent(comment.getContent());
-            }
-            dto.setParentId(comment.getParentId());
-            dto.setLikeCount(comment.getLikeCount());
-            dto.setIsLiked(likedCommentIds.contains(comment.getId()));
-            dto.setCreateTime(comment.getCreateTime());
-            dto.setReplies(new ArrayList<>());
+            CommentDTO dto = toCommentDTO(comment, userMap, likedCommentIds, pendingLikes);
+            dto.setParentUserNickname(parentNickname);
             dtoMap.put(comment.getId(), dto);
         }
-
-        List<CommentDTO> roots = new ArrayList<>();
-        for (Comment comment : comments) {
-            CommentDTO dto = dtoMap.get(comment.getId());
-            Long parentId = comment.getParentId();
-            if (parentId == null) {
-                roots.add(dto);
-                continue;
-            }
-            CommentDTO parentDto = dtoMap.get(parentId);
+        for (Comment reply : previews) {
+            CommentDTO parentDto = dtoMap.get(reply.getParentId());
             if (parentDto == null) {
-                roots.add(dto);
                 continue;
             }
-            User parentUser = userMap.get(parentDto.getUserId());
-            dto.setParentUserNickname(parentUser == null ? null : parentUser.getNickname());
+            CommentDTO dto = toCommentDTO(reply, userMap, likedCommentIds, pendingLikes);
+            dto.setParentUserNickname(parentDto.getUserNickname());
             parentDto.getReplies().add(dto);
         }
-        return roots;
+        return new ArrayList<>(dtoMap.values());
+    }
+
+    private CommentDTO toCommentDTO(Comment comment, Map<Long, User> userMap,
+                                    Set<Long> likedCommentIds, Map<Long, Long> pendingLikes) {
+        CommentDTO dto = new CommentDTO();
+        dto.setId(comment.getId());
+        dto.setUserId(comment.getUserId());
+        dto.setUserNickname(nickname(userMap, comment.getUserId()));
+        if (!"normal".equals(comment.getStatus())) {
+            dto.setContent(DELETED_PLACEHOLDER);
+        } else {
+            dto.setContent(comment.getContent());
+        }
+        dto.setParentId(comment.getParentId());
+        int likeCount = comment.getLikeCount() == null ? 0 : comment.getLikeCount();
+        dto.setLikeCount((int) Math.max(0, likeCount + pendingLikes.getOrDefault(comment.getId(), 0L)));
+        dto.setIsLiked(likedCommentIds.contains(comment.getId()));
+        dto.setReplyCount(comment.getReplyCount() == null ? 0 : comment.getReplyCount());
+        dto.setCreateTime(comment.getCreateTime());
+        dto.setReplies(new ArrayList<>());
+        return dto;
+    }
+
+    private static String nickname(Map<Long, User> userMap, Long userId) {
+        User user = userMap.get(userId);
+        return user == null ? null : user.getNickname();
+    }
+
+    private static int normalizePageSize(Integer size) {
+        if (size == null || size < 1) {
+            return 20;
+        }
+        return Math.min(size, MAX_COMMENT_PAGE_SIZE);
     }
 }
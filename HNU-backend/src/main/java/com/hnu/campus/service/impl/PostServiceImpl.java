@@ -4,6 +4,18 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hnu.campus.cache.HotPostListCache;
+import com.hnu.campus.cache.HotPostRanking;
+import com.hnu.campus.cache.LikeCountShards;
+import com.hnu.campus.cache.PostDetailCache;
+import com.hnu.campus.cache.PostLikeEngine;
+import com.hnu.campus.cache.PostStatsScripts;
+import com.hnu.campus.cache.PostTimelineCache;
+import com.hnu.campus.cache.PostViewBuffer;
+import com.hnu.campus.cache.TrendingPostBuckets;
+import com.hnu.campus.cache.UserLikeIndex;
+import com.hnu.campus.dto.comment.CommentDTO;
+import com.hnu.campus.dto.common.CursorPageDTO;
 import com.hnu.campus.dto.post.PostCreateDTO;
 import com.hnu.campus.dto.post.PostDetailDTO;
 import com.hnu.campus.dto.post.PostListDTO;
@@ -16,42 +28,112 @@ import com.hnu.campus.mapper.PostCategoryMapper;
 import com.hnu.campus.mapper.PostLikeMapper;
 import com.hnu.campus.mapper.PostMapper;
 import com.hnu.campus.mapper.UserMapper;
+import com.hnu.campus.search.PostSearchEngine;
+import com.hnu.campus.security.CurrentUserContext;
 import com.hnu.campus.service.CommentService;
 import com.hnu.campus.service.PostService;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import com.hnu.campus.util.CjkBigramTokenizer;
+import com.hnu.campus.util.TimeIdCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.time.Duration;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class PostServiceImpl implements PostService {
-    private static final String HOT_POST_KEY = "hot:posts";
-    private static final String VIEW_KEY_PREFIX = "post:view:";
-    private static final String VIEW_DEDUP_PREFIX = "post:view:dedup:";
+    private static final int MAX_CURSOR_PAGE_SIZE = 50;
+    private static final int HOT_LIST_SIZE = 10;
+    private static final int DEFAULT_TRENDING_WINDOW_HOURS = 24;
+    private static final String SEARCH_MODE_LIKE = "like";
 
     private final PostMapper postMapper;
     private final PostCategoryMapper categoryMapper;
     private final UserMapper userMapper;
     private final PostLikeMapper postLikeMapper;
     private final CommentService commentService;
-    private final StringRedisTemplate redisTemplate;
+    private final PostTimelineCache postTimelineCache;
+    private final HotPostRanking hotPostRanking;
+    private final HotPostListCache hotPostListCache;
+    private final TrendingPostBuckets trendingPostBuckets;
+    private final PostViewBuffer postViewBuffer;
+    private final PostStatsScripts postStatsScripts;
+    private final PostDetailCache postDetailCache;
+    private final PostLikeEngine postLikeEngine;
+    private final UserLikeIndex userLikeIndex;
+    private final LikeCountShards likeCountShards;
+    private final Executor postDetailExecutor;
+    /**
+     * 可选的进程内搜索引擎，post.search.mode=memory 时存在
+     */
+    private final PostSearchEngine postSearchEngine;
+
+    @Value("${post.search.mode:fulltext}")
+    private String searchMode;
+
+    @Value("${post.search.short-keyword-window-days:30}")
+    private long shortKeywordWindowDays;
+
+    /**
+     * redis: 点赞状态在 Redis 中切换后异步落库；sql: 每次点赞一条 SQL 直接写数据库
+     */
+    @Value("${post.like.mode:redis}")
+    private String likeMode;
+
+    @Value("${post.detail.parallel:true}")
+    private boolean parallelDetail;
+
+    /**
+     * 详情页内嵌的第一页根评论数量，其余通过评论分页接口加载
+     */
+    @Value("${post.comment.detail-page-size:20}")
+    private int detailCommentPageSize;
 
     public PostServiceImpl(PostMapper postMapper,
                            PostCategoryMapper categoryMapper,
                            UserMapper userMapper,
                            PostLikeMapper postLikeMapper,
                            CommentService commentService,
-                           StringRedisTemplate redisTemplate) {
+                           PostTimelineCache postTimelineCache,
+                           HotPostRanking hotPostRanking,
+                           HotPostListCache hotPostListCache,
+                           TrendingPostBuckets trendingPostBuckets,
+                           PostViewBuffer postViewBuffer,
+                           PostStatsScripts postStatsScripts,
+                           PostDetailCache postDetailCache,
+                           PostLikeEngine postLikeEngine,
+                           UserLikeIndex userLikeIndex,
+                           LikeCountShards likeCountShards,
+                           @Qualifier("postDetailExecutor") Executor postDetailExecutor,
+                           ObjectProvider<PostSearchEngine> postSearchEngine) {
         this.postMapper = postMapper;
         this.categoryMapper = categoryMapper;
         this.userMapper = userMapper;
         this.postLikeMapper = postLikeMapper;
         this.commentService = commentService;
-        this.redisTemplate = redisTemplate;
+        this.postTimelineCache = postTimelineCache;
+        this.hotPostRanking = hotPostRanking;
+        this.hotPostListCache = hotPostListCache;
+        this.trendingPostBuckets = trendingPostBuckets;
+        this.postViewBuffer = postViewBuffer;
+        this.postStatsScripts = postStatsScripts;
+        this.postDetailCache = postDetailCache;
+        this.postLikeEngine = postLikeEngine;
+        this.userLikeIndex = userLikeIndex;
+        this.likeCountShards = likeCountShards;
+        this.postDetailExecutor = postDetailExecutor;
+        this.postSearchEngine = postSearchEngine.getIfAvailable();
     }
 
     @Override
@@ -71,12 +153,20 @@ public class PostServiceImpl implements PostService {
                 .contactInfo(createDTO.getContactInfo())
                 .viewCount(0)
                 .likeCount(0)
+                .commentCount(0)
                 .hotScore(BigDecimal.ZERO)
                 .status("normal")
                 .createTime(LocalDateTime.now())
                 .updateTime(LocalDateTime.now())
                 .build();
         postMapper.insert(post);
+        postMapper.updateSearchVector(post.getId(),
+                CjkBigramTokenizer.toTokenText(post.getTitle()),
+                CjkBigramTokenizer.toTokenText(post.getContent()));
+        postTimelineCache.onPostCreated(post);
+        if (postSearchEngine != null) {
+            postSearchEngine.index(post);
+        }
         return post.getId();
     }
 
@@ -94,10 +184,20 @@ public class PostServiceImpl implements PostService {
                 .set("status", "deleted")
                 .set("update_time", LocalDateTime.now());
         postMapper.update(null, updateWrapper);
+        postTimelineCache.onPostRemoved(postId, post.getCategoryId());
+        evictHotPost(postId);
+        postDetailCache.bumpVersion(postId);
+        if (postSearchEngine != null) {
+            postSearchEngine.remove(postId);
+        }
     }
 
     @Override
     public List<PostListDTO> getPostList(Integer categoryId, Integer page, Integer size) {
+        List<Long> cachedIds = postTimelineCache.getPage(categoryId, page, size);
+        if (cachedIds != null) {
+            return markLikedPosts(mapToPostListDTO(selectNormalPostsInOrder(cachedIds)));
+        }
         LambdaQueryWrapper<Post> wrapper = new LambdaQueryWrapper<Post>()
                 .eq(Post::getStatus, "normal")
                 .orderByDesc(Post::getCreateTime);
@@ -105,97 +205,209 @@ public class PostServiceImpl implements PostService {
             wrapper.eq(Post::getCategoryId, categoryId);
         }
         Page<Post> pageResult = postMapper.selectPage(new Page<>(page, size), wrapper);
-        return mapToPostListDTO(pageResult.getRecords());
+        return markLikedPosts(mapToPostListDTO(pageResult.getRecords()));
+    }
+
+    @Override
+    public CursorPageDTO<PostListDTO> getPostListByCursor(Integer categoryId, String cursor, Integer size) {
+        TimeIdCursor after = TimeIdCursor.decode(cursor);
+        int limit = normalizeCursorSize(size);
+        LambdaQueryWrapper<Post> wrapper = new LambdaQueryWrapper<Post>()
+                .eq(Post::getStatus, "normal");
+        if (categoryId != null) {
+            wrapper.eq(Post::getCategoryId, categoryId);
+        }
+        TimeIdCursor.applyDesc(wrapper, after, Post::getCreateTime, Post::getId, limit);
+        TimeIdCursor.Slice<Post> slice = TimeIdCursor.slice(postMapper.selectList(wrapper), limit,
+                Post::getCreateTime, Post::getId);
+        return new CursorPageDTO<>(markLikedPosts(mapToPostListDTO(slice.items())), slice.nextCursor(), slice.hasMore());
     }
 
     @Override
     public List<PostListDTO> searchPosts(String keyword, Integer categoryId, Integer page, Integer size) {
+        if (postSearchEngine != null && keyword != null) {
+            long offset = (long) Math.max(page - 1, 0) * size;
+            List<Long> ids = postSearchEngine.search(keyword.trim(), categoryId, (int) offset, size);
+            if (ids != null) {
+                return markLikedPosts(mapToPostListDTO(selectNormalPostsInOrder(ids)));
+            }
+        }
+        if (!SEARCH_MODE_LIKE.equalsIgnoreCase(searchMode)) {
+            return searchPostsByFullText(keyword, categoryId, page, size);
+        }
+        // PostgreSQL LIKE 默认以反斜杠转义，关键词里的 %、_ 按字面匹配
+        String pattern = escapeLike(keyword);
         LambdaQueryWrapper<Post> wrapper = new LambdaQueryWrapper<Post>()
                 .eq(Post::getStatus, "normal")
-                .and(query -> query.like(Post::getTitle, keyword).or().like(Post::getContent, keyword))
+                .and(query -> query.like(Post::getTitle, pattern).or().like(Post::getContent, pattern))
                 .orderByDesc(Post::getCreateTime);
         if (categoryId != null) {
             wrapper.eq(Post::getCategoryId, categoryId);
         }
         Page<Post> pageResult = postMapper.selectPage(new Page<>(page, size), wrapper);
-        return mapToPostListDTO(pageResult.getRecords());
+        return markLikedPosts(mapToPostListDTO(pageResult.getRecords()));
+    }
+
+    private List<PostListDTO> searchPostsByFullText(String keyword, Integer categoryId, Integer page, Integer size) {
+        String trimmed = keyword == null ? "" : keyword.trim();
+        // 只有标点、空白等切不出词的关键词没有可匹配的内容，直接返回空结果
+        if (trimmed.isEmpty() || CjkBigramTokenizer.tokenize(trimmed).isEmpty()) {
+            return List.of();
+        }
+        long offset = (long) Math.max(page - 1, 0) * size;
+        List<Post> posts;
+        if (CjkBigramTokenizer.isTooShortForIndex(trimmed)) {
+            // 单字关键词二元索引和 trigram 索引都用不上，只搜最近一段时间的帖子，避免全表扫描
+            LocalDateTime since = LocalDateTime.now().minusDays(shortKeywordWindowDays);
+            posts = postMapper.searchBySimilarity(trimmed, escapeLike(trimmed), categoryId, since, size, offset);
+        } else {
+            posts = postMapper.searchByVector(CjkBigramTokenizer.toTokenText(trimmed), categoryId, size, offset);
+        }
+        return markLikedPosts(mapToPostListDTO(posts));
+    }
+
+    /**
+     * 转义 LIKE 通配符，配合 ESCAPE '\' 使用
+     */
+    private static String escapeLike(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     @Override
     public List<PostListDTO> getHotPosts() {
-        Set<String> cachedIds = redisTemplate.opsForZSet().reverseRange(HOT_POST_KEY, 0, 9);
-        List<Post> posts;
+        List<PostListDTO> hotPosts = hotPostListCache.get(this::loadHotPosts);
+        if (CurrentUserContext.getUserId() == null) {
+            return hotPosts;
+        }
+        // 热榜快照由所有用户共享，叠加点赞状态前先复制
+        return markLikedPosts(hotPosts.stream().map(PostServiceImpl::copyOf).toList());
+    }
+
+    @Override
+    public List<PostListDTO> getTrendingPosts(Integer categoryId, Integer windowHours) {
+        int window = windowHours == null ? DEFAULT_TRENDING_WINDOW_HOURS : windowHours;
+        if (window < 1 || window > trendingPostBuckets.maxWindowHours()) {
+            throw new BusinessException(400, "统计窗口需在1到" + trendingPostBuckets.maxWindowHours() + "小时之间");
+        }
+        Set<String> cachedIds = trendingPostBuckets.topIds(categoryId, window, HOT_LIST_SIZE * 2);
+        if (cachedIds == null || cachedIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = cachedIds.stream()
+                .map(Long::valueOf)
+                .toList();
+        List<Post> posts = selectNormalPostsInOrder(ids);
+        return markLikedPosts(mapToPostListDTO(posts.stream().limit(HOT_LIST_SIZE).toList()));
+    }
+
+    @Override
+    public void evictHotPost(Long postId) {
+        hotPostRanking.remove(postId);
+        hotPostListCache.evict(postId, this::loadHotPosts);
+        postLikeEngine.evict(postId);
+    }
+
+    private List<PostListDTO> loadHotPosts() {
+        // 多取一倍，过滤掉已删除的帖子后仍能凑满热榜
+        Set<String> cachedIds = hotPostRanking.topIds(HOT_LIST_SIZE * 2);
         if (cachedIds == null || cachedIds.isEmpty()) {
-            posts = postMapper.selectList(new LambdaQueryWrapper<Post>()
+            List<Post> posts = postMapper.selectList(new LambdaQueryWrapper<Post>()
                     .eq(Post::getStatus, "normal")
                     .orderByDesc(Post::getHotScore)
                     .orderByDesc(Post::getCreateTime)
-                    .last("limit 10"));
-            if (!posts.isEmpty()) {
-                for (Post post : posts) {
-                    double score = post.getHotScore() == null ? 0 : post.getHotScore().doubleValue();
-                    redisTemplate.opsForZSet().add(HOT_POST_KEY, String.valueOf(post.getId()), score);
-                }
-                redisTemplate.expire(HOT_POST_KEY, Duration.ofHours(1));
-            }
-            return mapToPostListDTO(posts.stream()
-                    .filter(post -> "normal".equals(post.getStatus()))
-                    .toList());
+                    .last("limit " + HOT_LIST_SIZE));
+            hotPostRanking.seed(posts);
+            return mapToPostListDTO(posts);
         }
         List<Long> ids = cachedIds.stream()
                 .map(Long::valueOf)
                 .toList();
-        if (ids.isEmpty()) {
-            return List.of();
+        List<Post> posts = selectNormalPostsInOrder(ids);
+        Set<Long> aliveIds = posts.stream().map(Post::getId).collect(Collectors.toSet());
+        for (Long id : ids) {
+            if (!aliveIds.contains(id)) {
+                hotPostRanking.remove(id);
+            }
         }
-        List<Post> fetched = postMapper.selectBatchIds(ids);
-        Map<Long, Post> postMap = fetched.stream()
-                .collect(Collectors.toMap(Post::getId, item -> item));
-        posts = ids.stream()
-                .map(postMap::get)
-                .filter(Objects::nonNull)
-                .filter(post -> "normal".equals(post.getStatus()))
-                .toList();
-        return mapToPostListDTO(posts);
+        return mapToPostListDTO(posts.stream().limit(HOT_LIST_SIZE).toList());
     }
 
     @Override
     public PostDetailDTO getPostDetail(Long postId, Long currentUserId) {
-        Post post = postMapper.selectById(postId);
-        if (post == null || !"normal".equals(post.getStatus())) {
+        PostDetailCache.Entry cached = postDetailCache.get(postId);
+        Post post = null;
+        if (cached.detail() == null) {
+            post = postMapper.selectById(postId);
+            if (post == null || !"normal".equals(post.getStatus())) {
+                throw new BusinessException(404, "帖子不存在");
+            }
+        }
+        // 确认帖子存在后，其余查询互不依赖，并发执行
+        CompletableFuture<PostStatsScripts.DetailView> viewFuture =
+                fork(() -> postStatsScripts.view(postId, currentUserId));
+
+        PostDetailDTO detail = cached.detail();
+        if (detail == null) {
+            detail = loadDetailSnapshot(post);
+            postDetailCache.put(postId, cached.version(), detail);
+        }
+        // 点赞状态只查快照中第一页评论及其回复预览
+        List<Long> commentIds = new ArrayList<>();
+        collectCommentIds(detail.getComments(), commentIds);
+        CompletableFuture<Set<Long>> likedCommentsFuture =
+                fork(() -> commentService.getLikedCommentIds(currentUserId, commentIds));
+
+        // 在共享快照上叠加实时浏览量、热度、点赞数和当前用户的点赞状态；
+        // 详情脚本同时检查删帖标记，缓存命中时不查库也不会返回已删除的帖子
+        PostStatsScripts.DetailView view = join(viewFuture);
+        if (view.deleted()) {
             throw new BusinessException(404, "帖子不存在");
         }
-        User author = userMapper.selectById(post.getAuthorId());
-        PostCategory category = categoryMapper.selectById(post.getCategoryId());
-
-        String viewKey = VIEW_KEY_PREFIX + postId;
-        boolean shouldIncreaseView = true;
-        if (currentUserId != null) {
-            String dedupKey = VIEW_DEDUP_PREFIX + postId + ":" + currentUserId;
-            Boolean firstView = redisTemplate.opsForValue()
-                    .setIfAbsent(dedupKey, "1", Duration.ofMinutes(10));
-            shouldIncreaseView = Boolean.TRUE.equals(firstView);
-        }
-        long delta = 0;
-        if (shouldIncreaseView) {
-            Long inc = redisTemplate.opsForValue().increment(viewKey);
-            delta = inc == null ? 0 : inc;
+        if (view.firstView()) {
+            postViewBuffer.record(postId, detail.getCategoryId());
+        }
+        long localViews = postViewBuffer.localDelta(postId);
+        long delta = view.pendingViews() + localViews;
+        // 本地缓冲中尚未刷到热榜的浏览按当前时刻计入热度
+        BigDecimal hotScore = view.hotScore()
+                .add(BigDecimal.valueOf(localViews * HotPostRanking.VIEW_WEIGHT))
+                .setScale(2, RoundingMode.HALF_UP);
+        int baseView = detail.getViewCount() == null ? 0 : detail.getViewCount();
+        detail.setViewCount(baseView + (int) delta);
+        detail.setHotScore(hotScore);
+        if (view.likeCount() != null) {
+            detail.setLikeCount(view.likeCount());
         } else {
-            String deltaText = redisTemplate.opsForValue().get(viewKey);
-            if (deltaText != null) {
-                try {
-                    delta = Long.parseLong(deltaText);
-                } catch (NumberFormatException ignored) {
-                    delta = 0;
-                }
+            Long pendingLikes = likeCountShards.pendingDeltas(LikeCountShards.POST, List.of(postId)).get(postId);
+            if (pendingLikes != null) {
+                detail.setLikeCount((int) Math.max(0, detail.getLikeCount() + pendingLikes));
             }
         }
-        int baseView = post.getViewCount() == null ? 0 : post.getViewCount();
-        int viewCount = baseView + (int) delta;
-        int likeCount = post.getLikeCount() == null ? 0 : post.getLikeCount();
-        BigDecimal hotScore = BigDecimal.valueOf(viewCount * 0.3 + likeCount * 0.7);
-        redisTemplate.opsForZSet().add(HOT_POST_KEY, String.valueOf(postId), hotScore.doubleValue());
-        redisTemplate.expire(HOT_POST_KEY, Duration.ofHours(1));
+        // 点赞状态未加载到 Redis 的帖子没有未落库的点赞，按数据库判断
+        Boolean liked = view.liked();
+        if (liked == null) {
+            liked = currentUserId != null && postLikeMapper.selectOne(new QueryWrapper<PostLike>()
+                    .eq("post_id", postId)
+                    .eq("user_id", currentUserId)) != null;
+        }
+        detail.setIsLiked(liked);
+        markLikedComments(detail.getComments(), join(likedCommentsFuture));
+        return detail;
+    }
+
+    /**
+     * 组装与用户无关的详情快照：浏览量为数据库基数，点赞状态一律为未点赞
+     */
+    private PostDetailDTO loadDetailSnapshot(Post post) {
+        CompletableFuture<User> authorFuture = fork(() -> userMapper.selectById(post.getAuthorId()));
+        CompletableFuture<PostCategory> categoryFuture = fork(() -> categoryMapper.selectById(post.getCategoryId()));
+        CompletableFuture<CursorPageDTO<CommentDTO>> commentsFuture =
+                fork(() -> commentService.getRootComments(post.getId(), null, detailCommentPageSize, null));
+        User author = join(authorFuture);
+        PostCategory category = join(categoryFuture);
 
         PostDetailDTO detail = new PostDetailDTO();
         detail.setId(post.getId());
@@ -206,75 +418,174 @@ public class PostServiceImpl implements PostService {
         detail.setAuthorId(post.getAuthorId());
         detail.setAuthorNickname(author == null ? null : author.getNickname());
         detail.setContactInfo(post.getContactInfo());
-        detail.setViewCount(viewCount);
-        detail.setLikeCount(likeCount);
-        detail.setHotScore(hotScore);
-        if (currentUserId != null) {
-            boolean liked = postLikeMapper.selectOne(new QueryWrapper<PostLike>()
-                    .eq("post_id", postId)
-                    .eq("user_id", currentUserId)) != null;
-            detail.setIsLiked(liked);
-        } else {
-            detail.setIsLiked(false);
-        }
+        detail.setViewCount(post.getViewCount() == null ? 0 : post.getViewCount());
+        detail.setLikeCount(post.getLikeCount() == null ? 0 : post.getLikeCount());
+        detail.setCommentCount(post.getCommentCount() == null ? 0 : post.getCommentCount());
+        detail.setIsLiked(false);
         detail.setCreateTime(post.getCreateTime());
-        detail.setComments(commentService.getCommentTree(postId, currentUserId));
+        CursorPageDTO<CommentDTO> comments = join(commentsFuture);
+        detail.setComments(comments.getRecords());
+        detail.setCommentNextCursor(comments.getNextCursor());
+        detail.setHasMoreComments(comments.getHasMore());
         return detail;
     }
 
+    private static void collectCommentIds(List<CommentDTO> comments, List<Long> ids) {
+        if (comments == null) {
+            return;
+        }
+        for (CommentDTO comment : comments) {
+            ids.add(comment.getId());
+            collectCommentIds(comment.getReplies(), ids);
+        }
+    }
+
+    private static void markLikedComments(List<CommentDTO> comments, Set<Long> likedCommentIds) {
+        if (comments == null) {
+            return;
+        }
+        for (CommentDTO comment : comments) {
+            comment.setIsLiked(likedCommentIds.contains(comment.getId()));
+            markLikedComments(comment.getReplies(), likedCommentIds);
+        }
+    }
+
+    /**
+     * 开启 post.detail.parallel 时提交到详情线程池，否则在当前线程直接执行
+     */
+    private <T> CompletableFuture<T> fork(Supplier<T> task) {
+        if (!parallelDetail) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        return CompletableFuture.supplyAsync(task, postDetailExecutor);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
     @Override
     public boolean toggleLike(Long postId, Long userId) {
-        Post post = postMapper.selectById(postId);
-        if (post == null || !"normal".equals(post.getStatus())) {
-            throw new BusinessException(404, "帖子不存在");
+        if ("sql".equals(likeMode)) {
+            return toggleLikeInDatabase(postId, userId);
         }
-        QueryWrapper<PostLike> wrapper = new QueryWrapper<PostLike>()
-                .eq("post_id", postId)
-                .eq("user_id", userId);
-        PostLike existing = postLikeMapper.selectOne(wrapper);
-        int currentLike = post.getLikeCount() == null ? 0 : post.getLikeCount();
-        int viewCount = post.getViewCount() == null ? 0 : post.getViewCount();
-        String deltaText = redisTemplate.opsForValue().get(VIEW_KEY_PREFIX + postId);
-        long delta = 0;
-        if (deltaText != null) {
-            try {
-                delta = Long.parseLong(deltaText);
-            } catch (NumberFormatException ignored) {
-                delta = 0;
+        // 点赞状态在 Redis 中原子切换，post_likes 和 like_count 由 PostLikeSyncTask 批量落库。
+        // 分类已缓存且点赞状态已加载时只有这一次 Redis 调用；删帖会清除点赞状态，之后在这里回源校验帖子状态
+        Integer categoryId = postLikeEngine.cachedCategory(postId);
+        Boolean liked = categoryId == null ? null : postStatsScripts.like(postId, userId, categoryId);
+        if (liked == null) {
+            Post post = postMapper.selectById(postId);
+            if (post == null || !"normal".equals(post.getStatus())) {
+                throw new BusinessException(404, "帖子不存在");
+            }
+            postLikeEngine.rememberCategory(postId, post.getCategoryId());
+            liked = postStatsScripts.like(postId, userId, post.getCategoryId());
+            if (liked == null) {
+                postLikeEngine.load(postId);
+                liked = postStatsScripts.like(postId, userId, post.getCategoryId());
             }
         }
-        int totalView = viewCount + (int) delta;
-        if (existing != null) {
-            postLikeMapper.deleteById(existing.getId());
-            int newLike = Math.max(0, currentLike - 1);
-            BigDecimal hotScore = BigDecimal.valueOf(totalView * 0.3 + newLike * 0.7);
-            UpdateWrapper<Post> updateWrapper = new UpdateWrapper<>();
-            updateWrapper.eq("id", postId)
-                    .set("like_count", newLike)
-                    .set("hot_score", hotScore)
-                    .set("update_time", LocalDateTime.now());
-            postMapper.update(null, updateWrapper);
-            redisTemplate.opsForZSet().add(HOT_POST_KEY, String.valueOf(postId), hotScore.doubleValue());
-            redisTemplate.expire(HOT_POST_KEY, Duration.ofHours(1));
-            return false;
-        }
-        PostLike like = PostLike.builder()
-                .postId(postId)
-                .userId(userId)
-                .createTime(LocalDateTime.now())
-                .build();
-        postLikeMapper.insert(like);
-        int newLike = currentLike + 1;
-        BigDecimal hotScore = BigDecimal.valueOf(totalView * 0.3 + newLike * 0.7);
-        UpdateWrapper<Post> updateWrapper = new UpdateWrapper<>();
-        updateWrapper.eq("id", postId)
-                .set("like_count", newLike)
-                .set("hot_score", hotScore)
-                .set("update_time", LocalDateTime.now());
-        postMapper.update(null, updateWrapper);
-        redisTemplate.opsForZSet().add(HOT_POST_KEY, String.valueOf(postId), hotScore.doubleValue());
-        redisTemplate.expire(HOT_POST_KEY, Duration.ofHours(1));
-        return true;
+        if (liked == null) {
+            throw new BusinessException(503, "点赞服务繁忙，请稍后重试");
+        }
+        return liked;
+    }
+
+    /**
+     * 不使用 Redis 点赞状态时，一条 SQL 完成点赞记录增删、like_count 增减和热度快照更新；
+     * 热点帖子改为累加计数分片
+     */
+    private boolean toggleLikeInDatabase(Long postId, Long userId) {
+        boolean sharded = likeCountShards.recordAndCheckHot(LikeCountShards.POST, postId);
+        Map<String, Object> result = sharded
+                ? postLikeMapper.toggleSharded(postId, userId, likeCountShards.randomShard())
+                : postLikeMapper.toggle(postId, userId,
+                HotPostRanking.VIEW_WEIGHT, HotPostRanking.LIKE_WEIGHT, hotPostRanking.lambda());
+        int state = result == null || result.get("liked") == null
+                ? -1 : ((Number) result.get("liked")).intValue();
+        if (state < 0) {
+            throw new BusinessException(404, "帖子不存在");
+        }
+        if (state == 2) {
+            // 并发请求已写入点赞，本次没有改动，热榜、用户索引和详情缓存都由那次请求更新
+            return true;
+        }
+        boolean liked = state == 1;
+        userLikeIndex.recordPostLike(userId, postId, liked);
+        Object categoryId = result.get("category_id");
+        try {
+            postStatsScripts.rankLike(postId, categoryId == null ? null : ((Number) categoryId).intValue(), liked);
+        } catch (Exception ex) {
+            // 热榜只是派生数据，下次回源或 rebase 时会修正
+            log.warn("Update hot ranking after like failed: {}", ex.getMessage());
+        }
+        if (!sharded) {
+            postDetailCache.bumpVersion(postId);
+        }
+        return liked;
+    }
+
+    /**
+     * 按给定ID顺序批量取帖子，过滤已删除的帖子。
+     */
+    private List<Post> selectNormalPostsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Post> postMap = postMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(Post::getId, item -> item));
+        return ids.stream()
+                .map(postMap::get)
+                .filter(Objects::nonNull)
+                .filter(post -> "normal".equals(post.getStatus()))
+                .toList();
+    }
+
+    private int normalizeCursorSize(Integer size) {
+        if (size == null || size < 1) {
+            return 10;
+        }
+        return Math.min(size, MAX_CURSOR_PAGE_SIZE);
+    }
+
+    /**
+     * 用当前用户的点赞索引一次查询填充整页的点赞状态，匿名用户保持未点赞
+     */
+    private List<PostListDTO> markLikedPosts(List<PostListDTO> posts) {
+        Long userId = CurrentUserContext.getUserId();
+        if (userId == null || posts.isEmpty()) {
+            return posts;
+        }
+        Set<Long> likedIds = userLikeIndex.likedPostIds(userId, posts.stream().map(PostListDTO::getId).toList());
+        for (PostListDTO post : posts) {
+            post.setIsLiked(likedIds.contains(post.getId()));
+        }
+        return posts;
+    }
+
+    private static PostListDTO copyOf(PostListDTO source) {
+        PostListDTO dto = new PostListDTO();
+        dto.setId(source.getId());
+        dto.setTitle(source.getTitle());
+        dto.setContentSummary(source.getContentSummary());
+        dto.setCategoryId(source.getCategoryId());
+        dto.setCategoryName(source.getCategoryName());
+        dto.setAuthorId(source.getAuthorId());
+        dto.setAuthorNickname(source.getAuthorNickname());
+        dto.setViewCount(source.getViewCount());
+        dto.setLikeCount(source.getLikeCount());
+        dto.setCommentCount(source.getCommentCount());
+        dto.setIsLiked(source.getIsLiked());
+        dto.setHotScore(source.getHotScore());
+        dto.setCreateTime(source.getCreateTime());
+        return dto;
     }
 
     private List<PostListDTO> mapToPostListDTO(List<Post> posts) {
@@ -314,6 +625,8 @@ public class PostServiceImpl implements PostService {
                     dto.setAuthorNickname(author == null ? null : author.getNickname());
                     dto.setViewCount(post.getViewCount());
                     dto.setLikeCount(post.getLikeCount());
+                    dto.setCommentCount(post.getCommentCount());
+                    dto.setIsLiked(false);
                     dto.setHotScore(post.getHotScore());
                     dto.setCreateTime(post.getCreateTime());
                     return dto;
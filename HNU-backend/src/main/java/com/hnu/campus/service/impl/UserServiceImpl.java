@@ -3,6 +3,8 @@ package com.hnu.campus.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hnu.campus.cache.UserLikeIndex;
+import com.hnu.campus.dto.common.CursorPageDTO;
 import com.hnu.campus.dto.post.PostListDTO;
 import com.hnu.campus.dto.user.PasswordUpdateDTO;
 import com.hnu.campus.dto.user.UserInfoDTO;
@@ -14,8 +16,10 @@ import com.hnu.campus.exception.BusinessException;
 import com.hnu.campus.mapper.PostCategoryMapper;
 import com.hnu.campus.mapper.PostMapper;
 import com.hnu.campus.mapper.UserMapper;
+import com.hnu.campus.security.CurrentUserContext;
+import com.hnu.campus.security.PasswordHasher;
 import com.hnu.campus.service.UserService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import com.hnu.campus.util.TimeIdCursor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -23,23 +27,29 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
+    private static final int MAX_CURSOR_PAGE_SIZE = 50;
+
     private final UserMapper userMapper;
     private final PostMapper postMapper;
     private final PostCategoryMapper categoryMapper;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final UserLikeIndex userLikeIndex;
 
     public UserServiceImpl(UserMapper userMapper,
                            PostMapper postMapper,
                            PostCategoryMapper categoryMapper,
-                           BCryptPasswordEncoder passwordEncoder) {
+                           PasswordHasher passwordHasher,
+                           UserLikeIndex userLikeIndex) {
         this.userMapper = userMapper;
         this.postMapper = postMapper;
         this.categoryMapper = categoryMapper;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.userLikeIndex = userLikeIndex;
     }
 
     @Override
@@ -94,15 +104,15 @@ public class UserServiceImpl implements UserService {
         if (existing == null) {
             throw new BusinessException(404, "用户不存在");
         }
-        if (!passwordEncoder.matches(passwordUpdateDTO.getOldPassword(), existing.getPassword())) {
-            throw new BusinessException(400, "原密码错误");
-        }
         if (!passwordUpdateDTO.getNewPassword().equals(passwordUpdateDTO.getConfirmPassword())) {
             throw new BusinessException(400, "两次新密码不一致");
         }
+        if (!passwordHasher.matches(passwordUpdateDTO.getOldPassword(), existing.getPassword())) {
+            throw new BusinessException(400, "原密码错误");
+        }
         UpdateWrapper<User> updateWrapper = new UpdateWrapper<>();
         updateWrapper.eq("id", userId)
-                .set("password", passwordEncoder.encode(passwordUpdateDTO.getNewPassword()))
+                .set("password", passwordHasher.encode(passwordUpdateDTO.getNewPassword()))
                 .set("update_time", LocalDateTime.now());
         userMapper.update(null, updateWrapper);
     }
@@ -116,7 +126,23 @@ public class UserServiceImpl implements UserService {
                         .eq(Post::getStatus, "normal")
                         .orderByDesc(Post::getCreateTime)
         );
-        List<Post> posts = pageResult.getRecords();
+        return mapToPostListDTO(userId, pageResult.getRecords());
+    }
+
+    @Override
+    public CursorPageDTO<PostListDTO> getUserPostsByCursor(Long userId, String cursor, Integer size) {
+        TimeIdCursor after = TimeIdCursor.decode(cursor);
+        int limit = size == null || size < 1 ? 10 : Math.min(size, MAX_CURSOR_PAGE_SIZE);
+        LambdaQueryWrapper<Post> wrapper = new LambdaQueryWrapper<Post>()
+                .eq(Post::getAuthorId, userId)
+                .eq(Post::getStatus, "normal");
+        TimeIdCursor.applyDesc(wrapper, after, Post::getCreateTime, Post::getId, limit);
+        TimeIdCursor.Slice<Post> slice = TimeIdCursor.slice(postMapper.selectList(wrapper), limit,
+                Post::getCreateTime, Post::getId);
+        return new CursorPageDTO<>(mapToPostListDTO(userId, slice.items()), slice.nextCursor(), slice.hasMore());
+    }
+
+    private List<PostListDTO> mapToPostListDTO(Long userId, List<Post> posts) {
         if (posts.isEmpty()) {
             return List.of();
         }
@@ -131,6 +157,9 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toMap(PostCategory::getId, item -> item));
         User author = userMapper.selectById(userId);
         String authorNickname = author == null ? "" : author.getNickname();
+        // 当前浏览者（不一定是作者本人）对这一页帖子的点赞状态
+        Set<Long> likedIds = userLikeIndex.likedPostIds(CurrentUserContext.getUserId(),
+                posts.stream().map(Post::getId).toList());
         return posts.stream()
                 .map(post -> {
                     PostListDTO dto = new PostListDTO();
@@ -145,6 +174,8 @@ public class UserServiceImpl implements UserService {
                     dto.setAuthorNickname(authorNickname);
                     dto.setViewCount(post.getViewCount());
                     dto.setLikeCount(post.getLikeCount());
+                    dto.setCommentCount(post.getCommentCount());
+                    dto.setIsLiked(likedIds.contains(post.getId()));
                     dto.setHotScore(post.getHotScore());
                     dto.setCreateTime(post.getCreateTime());
                     return dto;
@@ -0,0 +1,224 @@
+package com.hnu.campus.task;
+
+import com.hnu.campus.dto.admin.BatchJobDTO;
+import com.hnu.campus.exception.BusinessException;
+import com.hnu.campus.exception.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 管理员批量操作的执行器。操作按块执行，每块一条 UPDATE，由调用方提供的 {@link Step} 完成；
+ * 总数不超过 admin.batch.async-threshold 时在请求线程中同步执行，否则提交到 adminBatchExecutor 异步执行，
+ * 进度写入 Redis 哈希 admin:batch:job:{jobId}，任一实例都可以查询。
+ */
+@Slf4j
+@Component
+public class AdminBatchJobs {
+    private static final String JOB_PREFIX = "admin:batch:job:";
+    private static final String RUNNING = "running";
+    private static final String COMPLETED = "completed";
+    private static final String FAILED = "failed";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${admin.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${admin.batch.async-threshold:1000}")
+    private long asyncThreshold;
+
+    @Value("${admin.batch.job-ttl-seconds:86400}")
+    private long jobTtlSeconds;
+
+    public AdminBatchJobs(StringRedisTemplate redisTemplate,
+                          @Qualifier("adminBatchExecutor") ThreadPoolTaskExecutor executor) {
+        this.redisTemplate = redisTemplate;
+        this.executor = executor;
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * 执行一个批量操作，total 为预计处理的总数，用于选择同步/异步和展示进度
+     */
+    public BatchJobDTO run(String type, long total, Step step) {
+        if (total <= asyncThreshold) {
+            BatchJobDTO job = newJob(null, type, total);
+            execute(step, job, false);
+            job.setStatus(COMPLETED);
+            return job;
+        }
+        BatchJobDTO job = newJob(UUID.randomUUID().toString().replace("-", ""), type, total);
+        save(job);
+        try {
+            executor.execute(() -> {
+                try {
+                    execute(step, job, true);
+                    job.setStatus(COMPLETED);
+                } catch (Exception ex) {
+                    job.setStatus(FAILED);
+                    job.setError(ex.getMessage());
+                    log.warn("Admin batch job {} ({}) failed after {} of {}: {}",
+                            job.getJobId(), type, job.getProcessed(), total, ex.getMessage());
+                }
+                save(job);
+            });
+        } catch (TaskRejectedException ex) {
+            redisTemplate.delete(JOB_PREFIX + job.getJobId());
+            throw new ServiceBusyException("Too many batch jobs running, please retry later", 5);
+        }
+        return copyOf(job);
+    }
+
+    public BatchJobDTO get(String jobId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(JOB_PREFIX + jobId);
+        if (fields.isEmpty()) {
+            throw new BusinessException(404, "Batch job not found");
+        }
+        BatchJobDTO job = new BatchJobDTO();
+        job.setJobId(jobId);
+        job.setType((String) fields.get("type"));
+        job.setStatus((String) fields.get("status"));
+        job.setTotal(parseLong(fields.get("total")));
+        job.setProcessed(parseLong(fields.get("processed")));
+        job.setAffected(parseLong(fields.get("affected")));
+        job.setError((String) fields.get("error"));
+        return job;
+    }
+
+    /**
+     * 按 ID 列表分块，每块调用一次 apply，apply 返回该块实际变更的行数
+     */
+    public Step overIds(List<Long> ids, ToIntFunction<List<Long>> apply) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        Iterator<List<Long>> iterator = chunks.iterator();
+        return () -> {
+            if (!iterator.hasNext()) {
+                return new Chunk(0, 0, true);
+            }
+            List<Long> chunk = iterator.next();
+            return new Chunk(chunk.size(), apply.applyAsInt(chunk), !iterator.hasNext());
+        };
+    }
+
+    /**
+     * 按筛选条件反复执行，apply 每次最多变更 chunkSize 行，变更数不足一块时结束
+     */
+    public Step untilExhausted(IntSupplier apply) {
+        return () -> {
+            int affected = apply.getAsInt();
+            return new Chunk(affected, affected, affected < chunkSize);
+        };
+    }
+
+    public static List<Long> distinctIds(Collection<Long> ids) {
+        LinkedHashSet<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        return new ArrayList<>(distinct);
+    }
+
+    private void execute(Step step, BatchJobDTO job, boolean reportProgress) {
+        Chunk chunk;
+        do {
+            chunk = step.next();
+            job.setProcessed(job.getProcessed() + chunk.processed());
+            job.setAffected(job.getAffected() + chunk.affected());
+            if (reportProgress) {
+                save(job);
+            }
+        } while (!chunk.last());
+    }
+
+    private BatchJobDTO newJob(String jobId, String type, long total) {
+        BatchJobDTO job = new BatchJobDTO();
+        job.setJobId(jobId);
+        job.setType(type);
+        job.setStatus(RUNNING);
+        job.setTotal(total);
+        job.setProcessed(0L);
+        job.setAffected(0L);
+        return job;
+    }
+
+    private void save(BatchJobDTO job) {
+        String key = JOB_PREFIX + job.getJobId();
+        Map<String, String> fields = new HashMap<>();
+        fields.put("type", job.getType());
+        fields.put("status", job.getStatus());
+        fields.put("total", String.valueOf(job.getTotal()));
+        fields.put("processed", String.valueOf(job.getProcessed()));
+        fields.put("affected", String.valueOf(job.getAffected()));
+        if (job.getError() != null) {
+            fields.put("error", job.getError());
+        }
+        try {
+            redisTemplate.opsForHash().putAll(key, fields);
+            redisTemplate.expire(key, Duration.ofSeconds(jobTtlSeconds));
+        } catch (Exception ex) {
+            // 只影响进度查询，不中断批量操作
+            log.warn("Save admin batch job {} failed: {}", job.getJobId(), ex.getMessage());
+        }
+    }
+
+    private static BatchJobDTO copyOf(BatchJobDTO job) {
+        BatchJobDTO copy = new BatchJobDTO();
+        copy.setJobId(job.getJobId());
+        copy.setType(job.getType());
+        copy.setStatus(job.getStatus());
+        copy.setTotal(job.getTotal());
+        copy.setProcessed(job.getProcessed());
+        copy.setAffected(job.getAffected());
+        copy.setError(job.getError());
+        return copy;
+    }
+
+    private static Long parseLong(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.toString());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Step {
+        /**
+         * 处理下一块
+         */
+        Chunk next();
+    }
+
+    /**
+     * @param processed 本块处理的数量
+     * @param affected  本块实际变更的数量
+     * @param last      是否为最后一块
+     */
+    public record Chunk(int processed, int affected, boolean last) {
+    }
+}
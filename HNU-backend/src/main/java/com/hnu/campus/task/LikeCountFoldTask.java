@@ -0,0 +1,54 @@
+package com.hnu.campus.task;
+
+import com.hnu.campus.cache.HotPostRanking;
+import com.hnu.campus.cache.LikeCountShards;
+import com.hnu.campus.cache.PostDetailCache;
+import com.hnu.campus.mapper.LikeCountShardMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 把热点行的点赞分片合并回 posts / comments 的 like_count。
+ * 每类目标一条 DELETE ... RETURNING + UPDATE 语句，取走与合并在同一事务内完成。
+ */
+@Slf4j
+@Component
+public class LikeCountFoldTask {
+    private final LikeCountShardMapper shardMapper;
+    private final LikeCountShards likeCountShards;
+    private final HotPostRanking hotPostRanking;
+    private final PostDetailCache postDetailCache;
+
+    public LikeCountFoldTask(LikeCountShardMapper shardMapper,
+                             LikeCountShards likeCountShards,
+                             HotPostRanking hotPostRanking,
+                             PostDetailCache postDetailCache) {
+        this.shardMapper = shardMapper;
+        this.likeCountShards = likeCountShards;
+        this.hotPostRanking = hotPostRanking;
+        this.postDetailCache = postDetailCache;
+    }
+
+    @Scheduled(fixedDelayString = "${post.like.shard.fold-interval-ms:1000}")
+    public void fold() {
+        Set<Long> changedPosts = new HashSet<>();
+        try {
+            changedPosts.addAll(shardMapper.foldCommentShards());
+            List<Long> posts = shardMapper.foldPostShards(HotPostRanking.VIEW_WEIGHT,
+                    HotPostRanking.LIKE_WEIGHT, hotPostRanking.lambda());
+            changedPosts.addAll(posts);
+        } catch (Exception ex) {
+            // 未合并的分片留在表中，下一轮继续
+            log.warn("Fold like count shards failed: {}", ex.getMessage());
+        }
+        if (!changedPosts.isEmpty()) {
+            postDetailCache.bumpVersions(changedPosts);
+        }
+        likeCountShards.prune();
+    }
+}
@@ -0,0 +1,141 @@
+package com.hnu.campus.task;
+
+import com.hnu.campus.cache.HotPostRanking;
+import com.hnu.campus.cache.PostDetailCache;
+import com.hnu.campus.cache.PostLikeEngine;
+import com.hnu.campus.entity.PostLike;
+import com.hnu.campus.mapper.PostLikeMapper;
+import com.hnu.campus.mapper.PostMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 点赞落库：按块取出 Redis 中待落库的点赞状态，每块 INSERT ... ON CONFLICT DO NOTHING / DELETE 写回 post_likes，
+ * 再按 post_likes 重算涉及帖子的 like_count 和热度快照，成功后确认删除这一块。每条语句都是幂等的，失败后重试不会重复计数。
+ * 多实例部署时由 Redis 锁保证同一时刻只有一个实例落库；每块取出和确认前都校验并续期锁，锁丢失即中止，
+ * 单块大小有上限，落库耗时远小于锁租期，避免旧状态在新状态之后重放。
+ */
+@Slf4j
+@Component
+public class PostLikeSyncTask {
+    private final PostLikeEngine postLikeEngine;
+    private final PostLikeMapper postLikeMapper;
+    private final PostMapper postMapper;
+    private final HotPostRanking hotPostRanking;
+    private final PostDetailCache postDetailCache;
+
+    @Value("${post.like.sync-batch-size:500}")
+    private int batchSize;
+
+    public PostLikeSyncTask(PostLikeEngine postLikeEngine,
+                            PostLikeMapper postLikeMapper,
+                            PostMapper postMapper,
+                            HotPostRanking hotPostRanking,
+                            PostDetailCache postDetailCache) {
+        this.postLikeEngine = postLikeEngine;
+        this.postLikeMapper = postLikeMapper;
+        this.postMapper = postMapper;
+        this.hotPostRanking = hotPostRanking;
+        this.postDetailCache = postDetailCache;
+    }
+
+    @Scheduled(fixedDelayString = "${post.like.sync-interval-ms:1000}")
+    public void syncLikes() {
+        String owner;
+        try {
+            owner = postLikeEngine.tryLockSync();
+        } catch (Exception ex) {
+            log.warn("Acquire post like sync lock failed: {}", ex.getMessage());
+            return;
+        }
+        if (owner == null) {
+            // 其他实例正在落库
+            return;
+        }
+        try {
+            syncChunks(owner);
+        } finally {
+            try {
+                postLikeEngine.unlockSync(owner);
+            } catch (Exception ex) {
+                // 锁到期后自动释放
+                log.warn("Release post like sync lock failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void syncChunks(String owner) {
+        while (true) {
+            Map<String, String> chunk;
+            try {
+                chunk = postLikeEngine.nextChunk(owner, batchSize);
+            } catch (Exception ex) {
+                log.warn("Read pending post likes failed: {}", ex.getMessage());
+                return;
+            }
+            if (chunk == null) {
+                log.warn("Post like sync lock lost, stop syncing");
+                return;
+            }
+            if (chunk.isEmpty() || !syncChunk(owner, chunk)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 落库一块并确认，返回是否继续下一块
+     */
+    private boolean syncChunk(String owner, Map<String, String> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PostLike> likes = new ArrayList<>();
+        List<PostLike> unlikes = new ArrayList<>();
+        Set<Long> postIds = new LinkedHashSet<>();
+        chunk.forEach((field, state) -> {
+            int index = field.indexOf(':');
+            if (index <= 0) {
+                return;
+            }
+            PostLike like = PostLike.builder()
+                    .postId(Long.valueOf(field.substring(0, index)))
+                    .userId(Long.valueOf(field.substring(index + 1)))
+                    .createTime(now)
+                    .build();
+            ("1".equals(state) ? likes : unlikes).add(like);
+            postIds.add(like.getPostId());
+        });
+        try {
+            if (!likes.isEmpty()) {
+                postLikeMapper.insertIgnoreBatch(likes);
+            }
+            if (!unlikes.isEmpty()) {
+                postLikeMapper.deleteBatch(unlikes);
+            }
+            if (!postIds.isEmpty()) {
+                postMapper.refreshLikeCounts(new ArrayList<>(postIds),
+                        HotPostRanking.VIEW_WEIGHT, HotPostRanking.LIKE_WEIGHT, hotPostRanking.lambda());
+            }
+        } catch (Exception ex) {
+            // 这一块仍在处理中哈希里，下一轮重试
+            log.warn("Sync post likes failed, will retry {} entries: {}", chunk.size(), ex.getMessage());
+            return false;
+        }
+        if (!postLikeEngine.ack(owner, chunk.keySet())) {
+            log.warn("Post like sync lock lost before ack, {} entries will be synced again", chunk.size());
+            return false;
+        }
+        // 详情缓存里的点赞数基数已过时
+        postDetailCache.bumpVersions(postIds);
+        log.debug("Synced post likes: likes={}, unlikes={}, posts={}", likes.size(), unlikes.size(), postIds.size());
+        return true;
+    }
+}
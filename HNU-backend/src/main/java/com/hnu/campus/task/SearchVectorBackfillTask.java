@@ -0,0 +1,47 @@
+package com.hnu.campus.task;
+
+import com.hnu.campus.entity.Post;
+import com.hnu.campus.mapper.PostMapper;
+import com.hnu.campus.util.CjkBigramTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 为 search_vector 为空的帖子（历史数据、直接导入的数据）补齐全文检索向量。
+ */
+@Slf4j
+@Component
+public class SearchVectorBackfillTask {
+    private static final int BATCH_SIZE = 200;
+
+    private final PostMapper postMapper;
+
+    public SearchVectorBackfillTask(PostMapper postMapper) {
+        this.postMapper = postMapper;
+    }
+
+    @Scheduled(initialDelay = 30 * 1000, fixedDelay = 10 * 60 * 1000)
+    public void backfillSearchVectors() {
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            List<Post> posts = postMapper.selectWithoutSearchVector(afterId, BATCH_SIZE);
+            if (posts.isEmpty()) {
+                break;
+            }
+            for (Post post : posts) {
+                postMapper.updateSearchVector(post.getId(),
+                        CjkBigramTokenizer.toTokenText(post.getTitle()),
+                        CjkBigramTokenizer.toTokenText(post.getContent()));
+                afterId = post.getId();
+            }
+            total += posts.size();
+        }
+        if (total > 0) {
+            log.info("Backfilled search vectors for {} posts.", total);
+        }
+    }
+}
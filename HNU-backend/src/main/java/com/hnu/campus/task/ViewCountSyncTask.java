@@ -1,73 +1,93 @@
 package com.hnu.campus.task;
 
-import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
-import com.hnu.campus.entity.Post;
+import com.hnu.campus.cache.HotPostRanking;
+import com.hnu.campus.cache.PostDetailCache;
+import com.hnu.campus.cache.PostViewCounter;
 import com.hnu.campus.mapper.PostMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 浏览量落库：从脏集合中按批取走增量，每批一条 UPDATE ... FROM (VALUES ...) 写回数据库。
+ */
 @Slf4j
 @Component
 public class ViewCountSyncTask {
-    private static final String VIEW_KEY_PREFIX = "post:view:";
-
-    private final StringRedisTemplate redisTemplate;
+    private final PostViewCounter postViewCounter;
     private final PostMapper postMapper;
+    private final HotPostRanking hotPostRanking;
+    private final PostDetailCache postDetailCache;
+
+    private final AtomicLong flushedViewsTotal = new AtomicLong();
+    private final AtomicLong failedFlushesTotal = new AtomicLong();
+
+    @Value("${post.view-sync.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${post.view-sync.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
 
-    public ViewCountSyncTask(StringRedisTemplate redisTemplate, PostMapper postMapper) {
-        this.redisTemplate = redisTemplate;
+    public ViewCountSyncTask(PostViewCounter postViewCounter,
+                             PostMapper postMapper,
+                             HotPostRanking hotPostRanking,
+                             PostDetailCache postDetailCache) {
+        this.postViewCounter = postViewCounter;
         this.postMapper = postMapper;
+        this.hotPostRanking = hotPostRanking;
+        this.postDetailCache = postDetailCache;
     }
 
-    @Scheduled(fixedDelay = 10 * 60 * 1000)
+    @Scheduled(fixedDelayString = "${post.view-sync.interval-ms:600000}")
     public void syncViewCounts() {
-        Set<String> keys = redisTemplate.keys(VIEW_KEY_PREFIX + "*");
-        if (keys == null || keys.isEmpty()) {
-            return;
-        }
-        for (String key : keys) {
-            String idText = key.substring(VIEW_KEY_PREFIX.length());
-            Long postId;
-            try {
-                postId = Long.valueOf(idText);
-            } catch (NumberFormatException ex) {
-                continue;
+        long now = System.currentTimeMillis();
+        long posts = 0;
+        long views = 0;
+        long maxLag = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<PostViewCounter.PendingView> pending = postViewCounter.drain(chunkSize);
+            if (pending.isEmpty()) {
+                break;
             }
-            String deltaText = redisTemplate.opsForValue().get(key);
-            if (deltaText == null) {
-                continue;
+            Map<Long, Long> deltas = new LinkedHashMap<>();
+            for (PostViewCounter.PendingView view : pending) {
+                maxLag = Math.max(maxLag, now - view.dirtySince());
+                if (view.delta() > 0) {
+                    deltas.merge(view.postId(), view.delta(), Long::sum);
+                }
             }
-            long delta;
-            try {
-                delta = Long.parseLong(deltaText);
-            } catch (NumberFormatException ex) {
+            if (deltas.isEmpty()) {
                 continue;
             }
-            if (delta <= 0) {
-                redisTemplate.delete(key);
-                continue;
+            try {
+                postMapper.incrementViewCounts(deltas, HotPostRanking.VIEW_WEIGHT,
+                        HotPostRanking.LIKE_WEIGHT, hotPostRanking.lambda());
+            } catch (Exception ex) {
+                // 落库失败把增量还给 Redis，下一轮重试
+                postViewCounter.restore(pending);
+                failedFlushesTotal.incrementAndGet();
+                log.warn("Flush post view counts failed, restored {} posts: {}", deltas.size(), ex.getMessage());
+                break;
             }
-            Post post = postMapper.selectById(postId);
-            if (post == null) {
-                redisTemplate.delete(key);
-                continue;
+            // 详情缓存里的浏览基数已过时
+            postDetailCache.bumpVersions(deltas.keySet());
+            posts += deltas.size();
+            views += deltas.values().stream().mapToLong(Long::longValue).sum();
+            if (pending.size() < chunkSize) {
+                break;
             }
-            int newViewCount = post.getViewCount() == null ? (int) delta : post.getViewCount() + (int) delta;
-            int likeCount = post.getLikeCount() == null ? 0 : post.getLikeCount();
-            BigDecimal hotScore = BigDecimal.valueOf(newViewCount * 0.3 + likeCount * 0.7);
-            UpdateWrapper<Post> updateWrapper = new UpdateWrapper<>();
-            updateWrapper.eq("id", postId)
-                    .set("view_count", newViewCount)
-                    .set("hot_score", hotScore)
-                    .set("update_time", java.time.LocalDateTime.now());
-            postMapper.update(null, updateWrapper);
-            redisTemplate.delete(key);
         }
-        log.info("Synced post view counts from Redis.");
+        long totalViews = flushedViewsTotal.addAndGet(views);
+        long backlog = postViewCounter.backlog();
+        if (posts > 0 || backlog > 0) {
+            log.info("Synced post view counts: posts={}, views={}, maxLagMs={}, backlog={}, totalViews={}, failures={}",
+                    posts, views, maxLag, backlog, totalViews, failedFlushesTotal.get());
+        }
     }
 }
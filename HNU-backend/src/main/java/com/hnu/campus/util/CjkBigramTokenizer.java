@@ -0,0 +1,80 @@
+package com.hnu.campus.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 中文二元分词：连续的中日韩字符切成相邻二字词（单字成词），
+ * 连续的字母数字作为一个词并转小写，其余字符视为分隔符。
+ */
+public final class CjkBigramTokenizer {
+    private CjkBigramTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                appendBigrams(text.substring(start, i), tokens);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < length) {
+                    int current = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(current) || isCjk(current)) {
+                        break;
+                    }
+                    i += Character.charCount(current);
+                }
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 分词结果用空格拼接，配合 PostgreSQL 'simple' 配置的 to_tsvector/plainto_tsquery 使用。
+     */
+    public static String toTokenText(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    /**
+     * 关键词是否只能切出单字/单个短词，二元索引无法命中时由调用方走模糊匹配。
+     */
+    public static boolean isTooShortForIndex(String keyword) {
+        List<String> tokens = tokenize(keyword);
+        return tokens.isEmpty() || tokens.stream().allMatch(token -> token.codePointCount(0, token.length()) < 2);
+    }
+
+    private static void appendBigrams(String run, List<String> tokens) {
+        int[] cps = run.codePoints().toArray();
+        if (cps.length == 1) {
+            tokens.add(new String(cps, 0, 1));
+            return;
+        }
+        for (int j = 0; j + 1 < cps.length; j++) {
+            tokens.add(new String(cps, j, 2));
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
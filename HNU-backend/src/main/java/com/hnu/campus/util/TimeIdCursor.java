@@ -0,0 +1,89 @@
+package com.hnu.campus.util;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.hnu.campus.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 基于 (create_time, id) 的不透明游标，用于 keyset 分页。
+ * 游标条件、排序和下一页游标的计算都在这里，帖子列表、用户帖子和评论分页共用。
+ */
+public record TimeIdCursor(LocalDateTime createTime, Long id) {
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = createTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，空串表示从第一页开始，返回 null。
+     */
+    public static TimeIdCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index <= 0) {
+                throw new BusinessException(400, "无效的分页游标");
+            }
+            return new TimeIdCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.valueOf(raw.substring(index + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 按 (create_time, id) 倒序分页：追加游标条件和排序，多取一条用于判断是否还有下一页。
+     * 行比较可直接走 (create_time, id) 索引做范围定位，不需要 OFFSET 和 COUNT
+     */
+    public static <T> void applyDesc(LambdaQueryWrapper<T> wrapper, TimeIdCursor after,
+                                     SFunction<T, ?> createTime, SFunction<T, ?> id, int limit) {
+        if (after != null) {
+            wrapper.apply("(create_time, id) < ({0}, {1})", after.createTime(), after.id());
+        }
+        wrapper.orderByDesc(createTime)
+                .orderByDesc(id)
+                .last("limit " + (limit + 1));
+    }
+
+    /**
+     * 按 (create_time, id) 正序分页，其余同 {@link #applyDesc}
+     */
+    public static <T> void applyAsc(LambdaQueryWrapper<T> wrapper, TimeIdCursor after,
+                                    SFunction<T, ?> createTime, SFunction<T, ?> id, int limit) {
+        if (after != null) {
+            wrapper.apply("(create_time, id) > ({0}, {1})", after.createTime(), after.id());
+        }
+        wrapper.orderByAsc(createTime)
+                .orderByAsc(id)
+                .last("limit " + (limit + 1));
+    }
+
+    /**
+     * 截取 applyDesc/applyAsc 查出的结果：多出一条说明还有下一页，下一页游标取本页最后一条
+     */
+    public static <T> Slice<T> slice(List<T> rows, int limit,
+                                     Function<T, LocalDateTime> createTime, Function<T, Long> id) {
+        if (rows.size() <= limit) {
+            return new Slice<>(rows, null, false);
+        }
+        List<T> items = rows.subList(0, limit);
+        T last = items.get(items.size() - 1);
+        return new Slice<>(items, new TimeIdCursor(createTime.apply(last), id.apply(last)).encode(), true);
+    }
+
+    public record Slice<T>(List<T> items, String nextCursor, boolean hasMore) {
+    }
+}
@@ -98,6 +98,7 @@ CREATE TABLE posts (
     contact_info VARCHAR(200),
     view_count INT NOT NULL DEFAULT 0,
     like_count INT NOT NULL DEFAULT 0,
+    comment_count INT NOT NULL DEFAULT 0,
     hot_score DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
     status VARCHAR(20) NOT NULL DEFAULT 'normal',
     search_vector TSVECTOR,
@@ -117,8 +118,15 @@ CREATE INDEX idx_posts_hot_score ON posts(hot_score DESC, create_time DESC);
 CREATE INDEX idx_posts_create_time ON posts(create_time DESC);
 CREATE INDEX idx_posts_view_count ON posts(view_count DESC);
 CREATE INDEX idx_posts_like_count ON posts(like_count DESC);
+-- keyset 游标分页索引：(create_time, id) 行比较可直接做索引范围定位
+CREATE INDEX idx_posts_feed ON posts(create_time DESC, id DESC) WHERE status = 'normal';
+CREATE INDEX idx_posts_category_feed ON posts(category_id, create_time DESC, id DESC) WHERE status = 'normal';
+CREATE INDEX idx_posts_author_feed ON posts(author_id, create_time DESC, id DESC) WHERE status = 'normal';
 -- 全文检索索引（GIN索引，支持快速全文搜索）
 CREATE INDEX idx_posts_search_vector ON posts USING GIN(search_vector);
+-- 三元组索引，短关键词无法命中二元分词时用于模糊匹配
+CREATE INDEX idx_posts_title_trgm ON posts USING GIN(title gin_trgm_ops);
+CREATE INDEX idx_posts_content_trgm ON posts USING GIN(content gin_trgm_ops);
 
 -- 帖子表注释
 COMMENT ON TABLE posts IS '帖子表，存储用户发布的帖子信息';
@@ -130,9 +138,10 @@ COMMENT ON COLUMN posts.author_id IS '发布者ID，外键关联users';
 COMMENT ON COLUMN posts.contact_info IS '联系方式';
 COMMENT ON COLUMN posts.view_count IS '浏览量';
 COMMENT ON COLUMN posts.like_count IS '点赞数';
-COMMENT ON COLUMN posts.hot_score IS '热度值，用于热搜排序（计算公式：浏览量*0.3 + 点赞数*0.7 + 时间衰减因子）';
+COMMENT ON COLUMN posts.comment_count IS '评论数（正常状态的评论和回复），应用层批量异步累加，定时对账修正';
+COMMENT ON COLUMN posts.hot_score IS '热度值快照，用于热榜缓存缺失时的回源排序（计算公式：(浏览量*0.3 + 点赞数*0.7) * e^(-λ*发帖时长)，λ由半衰期决定）';
 COMMENT ON COLUMN posts.status IS '状态：normal(正常)/deleted(删除)';
-COMMENT ON COLUMN posts.search_vector IS '全文检索向量，用于PostgreSQL全文检索（预留，可后续接入ElasticSearch）';
+COMMENT ON COLUMN posts.search_vector IS '全文检索向量，应用层对标题(权重A)/正文(权重B)做中文二元分词后以simple配置生成';
 COMMENT ON COLUMN posts.create_time IS '创建时间';
 COMMENT ON COLUMN posts.update_time IS '更新时间';
 
@@ -146,6 +155,7 @@ CREATE TABLE comments (
     content TEXT NOT NULL,
     parent_id BIGINT,
     like_count INT NOT NULL DEFAULT 0,
+    reply_count INT NOT NULL DEFAULT 0,
     status VARCHAR(20) NOT NULL DEFAULT 'normal',
     create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -161,6 +171,9 @@ CREATE INDEX idx_comments_user_id ON comments(user_id);
 CREATE INDEX idx_comments_parent_id ON comments(parent_id);
 CREATE INDEX idx_comments_create_time ON comments(create_time DESC);
 CREATE INDEX idx_comments_status ON comments(status);
+-- 根评论与回复按 (create_time, id) 正序做 keyset 分页
+CREATE INDEX idx_comments_post_root ON comments(post_id, create_time, id) WHERE parent_id IS NULL;
+CREATE INDEX idx_comments_parent_thread ON comments(parent_id, create_time, id);
 
 -- 评论表注释
 COMMENT ON TABLE comments IS '评论表，存储帖子的评论和回复信息';
@@ -170,6 +183,7 @@ COMMENT ON COLUMN comments.user_id IS '评论者ID，外键关联users';
 COMMENT ON COLUMN comments.content IS '评论内容';
 COMMENT ON COLUMN comments.parent_id IS '父评论ID，用于回复功能，NULL表示直接评论帖子，否则为回复某条评论';
 COMMENT ON COLUMN comments.like_count IS '点赞数';
+COMMENT ON COLUMN comments.reply_count IS '直接回复数（含已删除的占位回复），应用层批量异步累加，定时对账修正';
 COMMENT ON COLUMN comments.status IS '状态：normal(正常)/deleted(删除)';
 COMMENT ON COLUMN comments.create_time IS '创建时间';
 COMMENT ON COLUMN comments.update_time IS '更新时间';
@@ -220,4 +234,22 @@ COMMENT ON TABLE comment_likes IS '评论点赞表，记录用户对评论的点
 COMMENT ON COLUMN comment_likes.id IS '点赞记录ID';
 COMMENT ON COLUMN comment_likes.comment_id IS '评论ID';
 COMMENT ON COLUMN comment_likes.user_id IS '用户ID';
-COMMENT ON COLUMN comment_likes.create_time IS '创建时间';
\ No newline at end of file
+COMMENT ON COLUMN comment_likes.create_time IS '创建时间';
+-- ============================================
+-- 7. 点赞计数分片表 (like_count_shards) - 热点行点赞计数分散写入
+-- ============================================
+CREATE TABLE like_count_shards (
+    target_type VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    shard INT NOT NULL,
+    delta INT NOT NULL DEFAULT 0,
+    CONSTRAINT pk_like_count_shards PRIMARY KEY (target_type, target_id, shard),
+    CONSTRAINT chk_like_count_shards_type CHECK (target_type IN ('post', 'comment'))
+);
+
+-- 点赞计数分片表注释
+COMMENT ON TABLE like_count_shards IS '点赞计数分片表，热点帖子/评论的点赞增量先累加到随机分片，定时合并回原行的like_count';
+COMMENT ON COLUMN like_count_shards.target_type IS '目标类型：post(帖子)/comment(评论)';
+COMMENT ON COLUMN like_count_shards.target_id IS '帖子ID或评论ID';
+COMMENT ON COLUMN like_count_shards.shard IS '分片序号，0到分片数-1';
+COMMENT ON COLUMN like_count_shards.delta IS '尚未合并的点赞增量，可为负';